@@ -0,0 +1,133 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной бенчмарк sec.jrxml по тому же пути, что и {@link Main#start()}:
+ * компиляция, заполнение из бинов {@link Product}/{@link A} и выгрузка в PDF.
+ * Каждая фаза измеряется отдельно; аллокации на операцию выводит профайлер gc.
+ * Запуск: mvn -Pjmh verify -DskipTests -Djmh.args="ReportRenderingBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReportRenderingBenchmark {
+
+    private static final String TEMPLATE = "sec.jrxml";
+    /**
+     * Семейство из efr-fonts.xml с той же кодировкой Cp1251, но без встраивания в PDF
+     */
+    private static final String NOT_EMBEDDED_FONT = "CourierNew";
+
+    @State(Scope.Benchmark)
+    public static class Template {
+
+        @Param({"true", "false"})
+        boolean embedFonts;
+
+        byte[] source;
+        JasperReport report;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, JRException {
+            String xml = new String(Files.readAllBytes(Paths.get(TEMPLATE)), StandardCharsets.UTF_8)
+                    // картинка в заголовке указывает на локальный файл автора шаблона
+                    .replace("<image>", "<image onErrorType=\"Blank\">");
+            if (!embedFonts) {
+                xml = xml.replace("fontName=\"Arial\"", "fontName=\"" + NOT_EMBEDDED_FONT + "\"");
+            }
+            source = xml.getBytes(StandardCharsets.UTF_8);
+            report = JasperCompileManager.compileReport(new ByteArrayInputStream(source));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Data {
+
+        @Param({"1", "10", "100"})
+        int products;
+
+        @Param({"10", "100", "1000"})
+        int rows;
+
+        List<Product> beans;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            beans = new ArrayList<>(products);
+            for (int p = 0; p < products; p++) {
+                List<A> nested = new ArrayList<>(rows);
+                for (int r = 0; r < rows; r++) {
+                    nested.add(new A("АЙДИ " + p + "-" + r, "Операция по счету 40817810099910004312 №" + r));
+                }
+                beans.add(new Product("id" + p, "Выписка " + p, String.valueOf(1000 + p), nested));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filled {
+
+        JasperPrint print;
+
+        @Setup(Level.Trial)
+        public void setUp(Template template, Data data) throws JRException {
+            print = fill(template.report, data.beans);
+        }
+    }
+
+    @Benchmark
+    public JasperReport compile(Template template) throws JRException {
+        return JasperCompileManager.compileReport(new ByteArrayInputStream(template.source));
+    }
+
+    @Benchmark
+    public JasperPrint fill(Template template, Data data) throws JRException {
+        return fill(template.report, data.beans);
+    }
+
+    @Benchmark
+    public void export(Filled filled) throws JRException {
+        JRPdfExporter exporter = new JRPdfExporter();
+        exporter.setExporterInput(new SimpleExporterInput(filled.print));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(OutputStream.nullOutputStream()));
+        exporter.exportReport();
+    }
+
+    private static JasperPrint fill(JasperReport report, List<Product> beans) throws JRException {
+        // заполнение дописывает служебные параметры в переданную карту, поэтому каждый раз новая изменяемая
+        return JasperFillManager.fillReport(report, new HashMap<>(), new BeanAccessorDataSource(beans));
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.jasper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки всех функций {@link TextFunctions} на типичных для выписок данных.
+ * Запуск: mvn -Pjmh verify -DskipTests (аллокации выводит профайлер gc)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextFunctionsBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("1234567.895");
+    private final BigDecimal negativeAmount = new BigDecimal("-98765.4321");
+    private final String amountString = "1234567.895";
+    private final Date date = Date.from(LocalDate.of(2021, 9, 29).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    private final Date otherDate = Date.from(LocalDate.of(2021, 9, 30).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    private final LocalDateTime localDateTime = LocalDateTime.of(2021, 9, 29, 11, 51, 51);
+    private final String isoDate = "2021-09-29";
+    private final String isoDateTime = "2021-09-29T11:51:51";
+    private final String offsetDateTime = "2021-09-29T11:51:51+03:00";
+    private final String phone = "+79161234567";
+    private final String cardNumber = "4276380012345678";
+    private final String accountNumber = "40817810099910004312";
+    private final String address = "Россия, 123456, г. Москва, ул. Тверская, д. 1, кв. 15";
+    private final String lastName = "Иванов";
+    private final String firstName = "Иван";
+    private final String middleName = "Иванович";
+    private final String snils = "12345678901";
+    private final List<String> addressParts = Arrays.asList("Россия", "г. Москва", "", "ул. Тверская", "д. 1");
+    private final String addressPartsPiped = "Россия|г. Москва|ул. Тверская|д. 1";
+    private final Map<String, Object> counters = new HashMap<>();
+
+    @Benchmark
+    public String dateCustomFormat() {
+        return TextFunctions.dateCustomFormat(date, "dd.MM.yyyy");
+    }
+
+    @Benchmark
+    public String localDateCustomFormat() {
+        return TextFunctions.localDateCustomFormat(isoDate, "d MMMM yyyy");
+    }
+
+    @Benchmark
+    public String defaultIfEmpty() {
+        return TextFunctions.defaultIfEmpty(lastName);
+    }
+
+    @Benchmark
+    public String defaultIfEmptyWithDefault() {
+        return TextFunctions.defaultIfEmpty("", "нет данных");
+    }
+
+    @Benchmark
+    public String yesNo() {
+        return TextFunctions.yesNo(Boolean.TRUE);
+    }
+
+    @Benchmark
+    public String dateFullFormat() {
+        return TextFunctions.dateFullFormat(date);
+    }
+
+    @Benchmark
+    public String formatMonths() {
+        return TextFunctions.formatMonths(27);
+    }
+
+    @Benchmark
+    public String getRussianPhone() {
+        return TextFunctions.getRussianPhone(phone);
+    }
+
+    @Benchmark
+    public String grayCheckbox() {
+        return TextFunctions.grayCheckbox(true);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormat() {
+        return TextFunctions.amountInDecimalFormat(amount);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatNegative() {
+        return TextFunctions.amountInDecimalFormat(negativeAmount);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatWithSeparator() {
+        return TextFunctions.amountInDecimalFormatWithSeparator(amount, ',');
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatWithSeparatorAndDefault() {
+        return TextFunctions.amountInDecimalFormatWithSeparator(amount, ',', "-");
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatWithDefault() {
+        return TextFunctions.amountInDecimalFormat(amount, "-");
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatScaleThree() {
+        return TextFunctions.amountInDecimalFormatScaleThree(amount);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatScaleThreeWithDefault() {
+        return TextFunctions.amountInDecimalFormatScaleThree(amount, "-");
+    }
+
+    @Benchmark
+    public Character getCharAtPos() {
+        return TextFunctions.getCharAtPos(accountNumber, 5);
+    }
+
+    @Benchmark
+    public String valuesFormatWithIndex() {
+        return TextFunctions.valuesFormatWithIndex("%d) %s", "; ", addressParts);
+    }
+
+    @Benchmark
+    public String valuesFormatWithIndexPiped() {
+        return TextFunctions.valuesFormatWithIndex("%d) %s", "; ", addressPartsPiped);
+    }
+
+    @Benchmark
+    public String valuesArray() {
+        return TextFunctions.valuesArray(", ", "Россия", "г. Москва", "ул. Тверская", "д. 1");
+    }
+
+    @Benchmark
+    public String valuesArrayIfExists() {
+        return TextFunctions.valuesArrayIfExists(", ", "Россия", "г. Москва", "ул. Тверская", "д. 1");
+    }
+
+    @Benchmark
+    public String getHeadOfString() {
+        return TextFunctions.getHeadOfString(address, 20);
+    }
+
+    @Benchmark
+    public String getTailOfString() {
+        return TextFunctions.getTailOfString(address, 20);
+    }
+
+    @Benchmark
+    public String formatCardNumber() {
+        return TextFunctions.formatCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public Date formatDate() {
+        return TextFunctions.formatDate(offsetDateTime);
+    }
+
+    @Benchmark
+    public String formatDateFromLocalDateTime() {
+        return TextFunctions.formatDateFromLocalDateTime(isoDateTime, "dd.MM.yyyy HH:mm");
+    }
+
+    @Benchmark
+    public String formatDateFromLocalDateTimeWithLocale() {
+        return TextFunctions.formatDateFromLocalDateTime(isoDateTime, "d MMMM yyyy", "ru");
+    }
+
+    @Benchmark
+    public String makeBold() {
+        return TextFunctions.makeBold(lastName);
+    }
+
+    @Benchmark
+    public String maskString() {
+        return TextFunctions.maskString(snils, "###-###-### ##");
+    }
+
+    @Benchmark
+    public String formatAccountNumber() {
+        return TextFunctions.formatAccountNumber(accountNumber);
+    }
+
+    @Benchmark
+    public String formatOnlyMonths() {
+        return TextFunctions.formatOnlyMonths(15);
+    }
+
+    @Benchmark
+    public String upperFirst() {
+        return TextFunctions.upperFirst(middleName);
+    }
+
+    @Benchmark
+    public String incCount() {
+        return TextFunctions.incCount(counters, "row");
+    }
+
+    @Benchmark
+    public String getCount() {
+        return TextFunctions.getCount(counters, "row");
+    }
+
+    @Benchmark
+    public String addHtmlWhiteSpace() {
+        return TextFunctions.addHtmlWhiteSpace(8);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatWithScale() {
+        return TextFunctions.amountInDecimalFormat(amount, 3);
+    }
+
+    @Benchmark
+    public String localDateTimeCustomFormat() {
+        return TextFunctions.localDateTimeCustomFormat(localDateTime, "dd.MM.yyyy HH:mm:ss");
+    }
+
+    @Benchmark
+    public String checkbox() {
+        return TextFunctions.checkbox(true);
+    }
+
+    @Benchmark
+    public String checkmark() {
+        return TextFunctions.checkmark(true);
+    }
+
+    @Benchmark
+    public String checkmarkOrEmpty() {
+        return TextFunctions.checkmarkOrEmpty(true);
+    }
+
+    @Benchmark
+    public String valuesList() {
+        return TextFunctions.valuesList(", ", addressParts);
+    }
+
+    @Benchmark
+    public String valuesListWithPrefixAndSuffix() {
+        return TextFunctions.valuesList(", ", "(", ")", addressParts);
+    }
+
+    @Benchmark
+    public boolean equalsDate() {
+        return TextFunctions.equalsDate(date, otherDate);
+    }
+
+    @Benchmark
+    public String amountInRurCurrencyStr() {
+        return TextFunctions.amountInRurCurrencyStr(amount);
+    }
+
+    @Benchmark
+    public String amountInString() {
+        return TextFunctions.amountInString(amount);
+    }
+
+    @Benchmark
+    public String paste() {
+        return TextFunctions.paste(accountNumber, " ", 5, true);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatFromString() {
+        return TextFunctions.amountInDecimalFormat(amountString);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatFromStringWithDefault() {
+        return TextFunctions.amountInDecimalFormat(amountString, "-");
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatWithGroupSeparator() {
+        return TextFunctions.amountInDecimalFormat(amount, "-", ',');
+    }
+
+    @Benchmark
+    public String formatYearOrMonths() {
+        return TextFunctions.formatYearOrMonths(24);
+    }
+
+    @Benchmark
+    public String extractCity() {
+        return TextFunctions.extractCity(address);
+    }
+
+    @Benchmark
+    public String lowerFirst() {
+        return TextFunctions.lowerFirst(lastName);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatScaleFour() {
+        return TextFunctions.amountInDecimalFormatScaleFour(amount);
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatScaleFourWithDefault() {
+        return TextFunctions.amountInDecimalFormatScaleFour(amount, "-");
+    }
+
+    @Benchmark
+    public String amountInDecimalFormatScaleFourFromString() {
+        return TextFunctions.amountInDecimalFormatScaleFour(amountString);
+    }
+
+    @Benchmark
+    public String replaceDefaultDateWithADash() {
+        return TextFunctions.replaceDefaultDateWithADash("01.01.1990");
+    }
+
+    @Benchmark
+    public String maskClientDocIssuerCode() {
+        return TextFunctions.maskClientDocIssuerCode("770001");
+    }
+
+    @Benchmark
+    public String buildFio() {
+        return TextFunctions.buildFio(lastName, firstName, middleName);
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.jasper;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
 
 @Data
+@Embeddable
+@NoArgsConstructor
 public class A {
     private String id;
     private String name;
@@ -0,0 +1,254 @@
+package com.example.jasper;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Пакетное формирование: отдельный PDF на каждую запись.
+ * Записи читаются из итератора по мере обработки, заполняются параллельно в пуле
+ * (в работе одновременно не больше jasper.batch.window записей), а результаты пишутся
+ * в исходном порядке в ZIP-поток или каталог. Шаблон компилируется один раз ({@link ReportTemplateRegistry}).
+ * Ошибка одной записи не прерывает пакет и попадает в {@link BatchResult}.
+ * Одновременно выполняется не больше jasper.batch.max-concurrent пакетов (остальные отклоняются
+ * {@link RejectedExecutionException} до записи ответа), поэтому очередь пула ограничена;
+ * запись, не сформированная за jasper.batch.record-timeout, считается ошибкой.
+ * Загрузка пула видна в /reports/stages как этап batch.
+ */
+@Slf4j
+@Service
+public class BatchRenderingService implements DisposableBean {
+
+    static final String ERRORS_ENTRY = "errors.txt";
+
+    private final ReportTemplateRegistry templates;
+    private final ReportRenderer renderer;
+    private final StageExecutor executor;
+    private final Semaphore slots;
+    private final int window;
+    private final long recordTimeoutNanos;
+
+    public BatchRenderingService(ReportTemplateRegistry templates, ReportRenderer renderer, ReportMetrics metrics,
+                                 ReportProperties properties) {
+        ReportProperties.Batch batch = properties.getBatch();
+        int maxConcurrent = Math.max(1, batch.getMaxConcurrent());
+        this.templates = templates;
+        this.renderer = renderer;
+        this.window = Math.max(1, batch.getWindow());
+        this.slots = new Semaphore(maxConcurrent);
+        this.executor = new StageExecutor("batch", batch.getThreads(), window * maxConcurrent);
+        this.recordTimeoutNanos = batch.getRecordTimeout().toNanos();
+        metrics.monitor("batch", executor);
+    }
+
+    /**
+     * Сформировать пакет в ZIP-поток; ошибки по записям дописываются в конец архива в errors.txt
+     *
+     * @param templateId   идентификатор шаблона
+     * @param parameters   общие параметры отчета
+     * @param records      записи, по одному PDF на запись
+     * @param outputStream поток для ZIP (не закрывается)
+     * @return итог пакета
+     */
+    public BatchResult renderZip(String templateId, Map<String, Object> parameters, Iterator<? extends Product> records,
+                                 OutputStream outputStream) throws JRException, IOException, InterruptedException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        BatchResult result = render(templateId, parameters, records, (name, pdf) -> {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(pdf);
+            zip.closeEntry();
+        });
+        if (!result.getErrors().isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            for (BatchError error : result.getErrors()) {
+                zip.write((error + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        return result;
+    }
+
+    /**
+     * Сформировать пакет в каталог
+     *
+     * @param templateId идентификатор шаблона
+     * @param parameters общие параметры отчета
+     * @param records    записи, по одному PDF на запись
+     * @param targetDir  каталог для файлов
+     * @return итог пакета
+     */
+    public BatchResult renderToDirectory(String templateId, Map<String, Object> parameters,
+                                         Iterator<? extends Product> records, Path targetDir)
+            throws JRException, IOException, InterruptedException {
+        Files.createDirectories(targetDir);
+        return render(templateId, parameters, records, (name, pdf) -> Files.write(targetDir.resolve(name), pdf));
+    }
+
+    /**
+     * Состояние пула пакетного формирования
+     */
+    public StageStats stats() {
+        return executor.stats();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private BatchResult render(String templateId, Map<String, Object> parameters, Iterator<? extends Product> records,
+                               BatchWriter writer) throws JRException, IOException, InterruptedException {
+        if (!slots.tryAcquire()) {
+            throw new RejectedExecutionException("Превышено число одновременно формируемых пакетов");
+        }
+        try {
+            return renderAdmitted(templateId, parameters, records, writer);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private BatchResult renderAdmitted(String templateId, Map<String, Object> parameters,
+                                       Iterator<? extends Product> records, BatchWriter writer)
+            throws JRException, IOException, InterruptedException {
+        templates.get(templateId);
+        long started = System.nanoTime();
+        Deque<BatchItem> pending = new ArrayDeque<>(window);
+        List<BatchError> errors = new ArrayList<>();
+        int total = 0;
+        int succeeded = 0;
+        boolean readFailed = false;
+        try {
+            while (records.hasNext()) {
+                int index = total++;
+                Product record;
+                try {
+                    record = records.next();
+                    readFailed = false;
+                } catch (RuntimeException e) {
+                    if (readFailed) {
+                        throw e;
+                    }
+                    readFailed = true;
+                    errors.add(new BatchError(index, null, "Не удалось прочитать запись: " + e.getMessage()));
+                    continue;
+                }
+                if (record == null) {
+                    errors.add(new BatchError(index, null, "Пустая запись"));
+                    continue;
+                }
+                pending.add(new BatchItem(index, record.getId(), System.nanoTime() + recordTimeoutNanos,
+                        executor.submit(() -> renderOne(templateId, parameters, record))));
+                if (pending.size() >= window && write(pending.poll(), writer, errors)) {
+                    succeeded++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                if (write(pending.poll(), writer, errors)) {
+                    succeeded++;
+                }
+            }
+        } finally {
+            pending.forEach(item -> item.getPdf().cancel(true));
+        }
+        log.info("Пакет {}: записей {}, успешно {}, ошибок {}, {} мс", templateId, total, succeeded, errors.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return new BatchResult(total, succeeded, Collections.unmodifiableList(errors));
+    }
+
+    private byte[] renderOne(String templateId, Map<String, Object> parameters, Product record) throws JRException {
+        JasperPrint jasperPrint = renderer.fill(templateId, parameters,
+                new BeanAccessorDataSource(Collections.singletonList(record)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(32 * 1024);
+        renderer.exportPdf(templateId, jasperPrint, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static boolean write(BatchItem item, BatchWriter writer, List<BatchError> errors)
+            throws IOException, InterruptedException {
+        byte[] pdf;
+        try {
+            pdf = item.getPdf().get(item.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            item.getPdf().cancel(true);
+            errors.add(new BatchError(item.getIndex(), item.getRecordId(), "Превышено время формирования записи"));
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            log.debug("Ошибка формирования записи {} ({})", item.getIndex(), item.getRecordId(), cause);
+            errors.add(new BatchError(item.getIndex(), item.getRecordId(), String.valueOf(cause.getMessage())));
+            return false;
+        }
+        writer.write(item.fileName(), pdf);
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(String name, byte[] pdf) throws IOException;
+    }
+
+    @Value
+    private static class BatchItem {
+        int index;
+        String recordId;
+        long deadline;
+        Future<byte[]> pdf;
+
+        String fileName() {
+            String suffix = recordId == null ? "" : "-" + recordId.replaceAll("[^A-Za-z0-9_-]", "_");
+            return String.format("%06d%s.pdf", index, suffix);
+        }
+    }
+
+    /**
+     * Итог пакета
+     */
+    @Value
+    public static class BatchResult {
+        int total;
+        int succeeded;
+        List<BatchError> errors;
+    }
+
+    /**
+     * Ошибка одной записи пакета
+     */
+    @Value
+    public static class BatchError {
+        int index;
+        String recordId;
+        String message;
+
+        @Override
+        public String toString() {
+            return index + (recordId == null ? "" : " (" + recordId + ")") + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Замена {@link net.sf.jasperreports.engine.data.JRBeanCollectionDataSource}:
+ * значения полей читаются через {@link BeanFieldAccessors}, без commons-beanutils на каждую строку
+ */
+public class BeanAccessorDataSource implements JRRewindableDataSource {
+
+    private final Collection<?> beans;
+    private final BeanFieldAccessors accessors;
+    private Iterator<?> iterator;
+    private Object current;
+
+    public BeanAccessorDataSource(Collection<?> beans) {
+        this(beans, false);
+    }
+
+    public BeanAccessorDataSource(Collection<?> beans, boolean useFieldDescription) {
+        this.beans = beans == null ? Collections.emptyList() : beans;
+        this.accessors = new BeanFieldAccessors(useFieldDescription);
+        this.iterator = this.beans.iterator();
+    }
+
+    @Override
+    public boolean next() {
+        if (iterator.hasNext()) {
+            current = iterator.next();
+            return true;
+        }
+        current = null;
+        return false;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return accessors.getFieldValue(current, field);
+    }
+
+    @Override
+    public void moveFirst() {
+        iterator = beans.iterator();
+        current = null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Доступ к полям бинов без рефлексии на каждую строку.
+ * Для пары (класс бина, свойство) один раз строится прямой вызов геттера через {@link LambdaMetafactory};
+ * экземпляр класса дополнительно запоминает привязку каждого поля отчета к такому вызову.
+ */
+public class BeanFieldAccessors {
+
+    /**
+     * Имя свойства, означающее сам бин (как в {@link net.sf.jasperreports.engine.data.JRAbstractBeanDataSource})
+     */
+    public static final String CURRENT_BEAN = "_THIS";
+
+    private static final ClassValue<ConcurrentMap<String, Function<Object, Object>>> ACCESSORS =
+            new ClassValue<ConcurrentMap<String, Function<Object, Object>>>() {
+                @Override
+                protected ConcurrentMap<String, Function<Object, Object>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final boolean useFieldDescription;
+    private final Map<JRField, Binding> bindings = new IdentityHashMap<>();
+
+    public BeanFieldAccessors(boolean useFieldDescription) {
+        this.useFieldDescription = useFieldDescription;
+    }
+
+    /**
+     * Значение поля отчета для бина
+     *
+     * @param bean  бин
+     * @param field поле отчета
+     * @return значение свойства
+     */
+    public Object getFieldValue(Object bean, JRField field) throws JRException {
+        if (bean == null) {
+            return null;
+        }
+        Binding binding = bindings.get(field);
+        if (binding == null || binding.type != bean.getClass()) {
+            String property = useFieldDescription && field.getDescription() != null ? field.getDescription() : field.getName();
+            try {
+                binding = new Binding(bean.getClass(), accessor(bean.getClass(), property));
+            } catch (IllegalArgumentException e) {
+                throw new JRException("Не удалось получить значение поля " + field.getName(), e);
+            }
+            bindings.put(field, binding);
+        }
+        return binding.accessor.apply(bean);
+    }
+
+    /**
+     * Скомпилированный доступ к свойству (поддерживаются вложенные свойства через точку)
+     *
+     * @param type     класс бина
+     * @param property имя свойства
+     * @return функция чтения свойства
+     */
+    public static Function<Object, Object> accessor(Class<?> type, String property) {
+        return ACCESSORS.get(type).computeIfAbsent(property, name -> compile(type, name));
+    }
+
+    private static Function<Object, Object> compile(Class<?> type, String property) {
+        if (CURRENT_BEAN.equals(property)) {
+            return Function.identity();
+        }
+        int dot = property.indexOf('.');
+        if (dot > 0) {
+            String head = property.substring(0, dot);
+            String tail = property.substring(dot + 1);
+            Function<Object, Object> first = accessor(type, head);
+            return bean -> {
+                Object value = first.apply(bean);
+                return value == null ? null : accessor(value.getClass(), tail).apply(value);
+            };
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return bean -> ((Map<?, ?>) bean).get(property);
+        }
+        return compileGetter(findGetter(type, property));
+    }
+
+    private static Method findGetter(Class<?> type, String property) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                Method method = type.getMethod(prefix + suffix);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    return publicDeclaration(type, method);
+                }
+            } catch (NoSuchMethodException e) {
+                // пробуем следующий префикс
+            }
+        }
+        throw new IllegalArgumentException("Нет геттера для свойства " + property + " в " + type.getName());
+    }
+
+    /**
+     * Геттер, объявленный в закрытом классе (например, в реализации коллекции), ищется в его публичных предках
+     */
+    private static Method publicDeclaration(Class<?> type, Method method) {
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        for (Class<?> candidate = type; candidate != null; candidate = candidate.getSuperclass()) {
+            for (Class<?> declaration : candidate.getInterfaces()) {
+                Method found = findPublic(declaration, method.getName());
+                if (found != null) {
+                    return found;
+                }
+            }
+            Class<?> superclass = candidate.getSuperclass();
+            if (superclass != null && Modifier.isPublic(superclass.getModifiers())) {
+                Method found = findPublic(superclass, method.getName());
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return method;
+    }
+
+    private static Method findPublic(Class<?> type, String name) {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compileGetter(Method getter) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(getter.getReturnType(), getter.getDeclaringClass()).wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            return reflectiveFallback(getter);
+        }
+    }
+
+    private static Function<Object, Object> reflectiveFallback(Method getter) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(getter)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Геттер недоступен: " + getter, e);
+        }
+        return bean -> {
+            try {
+                return handle.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static final class Binding {
+        private final Class<?> type;
+        private final Function<Object, Object> accessor;
+
+        private Binding(Class<?> type, Function<Object, Object> accessor) {
+            this.type = type;
+            this.accessor = accessor;
+        }
+    }
+}
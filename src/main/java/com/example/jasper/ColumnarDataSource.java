@@ -0,0 +1,474 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Источник данных, который хранит строки по столбцам.
+ * Числа и даты лежат в примитивных массивах, строки кодируются словарем (одинаковые значения хранятся
+ * один раз, в строке только номер), пустые значения отмечаются битовой маской.
+ * Объект на строку не создается, поэтому большие наборы занимают в разы меньше памяти, чем списки бинов.
+ * Значение создается только при чтении поля. Заполняется через {@link #builder()} или из бинов через {@link #of}.
+ */
+public class ColumnarDataSource implements JRRewindableDataSource {
+
+    private final Map<String, Column> columns;
+    private final int size;
+    private final Map<JRField, Column> bindings = new IdentityHashMap<>();
+    private int position = -1;
+
+    private ColumnarDataSource(Map<String, Column> columns, int size) {
+        this.columns = columns;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Столбцы из свойств бинов; тип столбца берется из типа геттера
+     *
+     * @param beans      бины
+     * @param type       класс бинов
+     * @param properties имена свойств
+     */
+    public static ColumnarDataSource of(Collection<?> beans, Class<?> type, String... properties) throws JRException {
+        Map<String, Class<?>> propertyTypes = new HashMap<>();
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                propertyTypes.put(descriptor.getName(), descriptor.getPropertyType());
+            }
+        } catch (IntrospectionException e) {
+            throw new JRException("Не удалось прочитать свойства " + type.getName(), e);
+        }
+        Builder builder = builder();
+        List<Function<Object, Object>> accessors = new ArrayList<>(properties.length);
+        for (String property : properties) {
+            Class<?> propertyType = propertyTypes.get(property);
+            if (propertyType == null) {
+                throw new JRException("Нет свойства " + property + " в " + type.getName());
+            }
+            builder.column(property, propertyType);
+            accessors.add(BeanFieldAccessors.accessor(type, property));
+        }
+        Object[] values = new Object[properties.length];
+        for (Object bean : beans) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = bean == null ? null : accessors.get(i).apply(bean);
+            }
+            builder.row(values);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Количество строк
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean next() {
+        if (position < size) {
+            position++;
+        }
+        return position < size;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        Column column = bindings.get(field);
+        if (column == null) {
+            column = columns.get(field.getName());
+            if (column == null) {
+                throw new JRException("Нет столбца " + field.getName());
+            }
+            bindings.put(field, column);
+        }
+        return column.nulls.get(position) ? null : column.get(position);
+    }
+
+    @Override
+    public void moveFirst() {
+        position = -1;
+    }
+
+    /**
+     * Построение источника по строкам. Порядок значений в {@link #row} совпадает с порядком {@link #column}.
+     */
+    public static final class Builder {
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+        private Column[] order = new Column[0];
+        private int size;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Добавить столбец
+         *
+         * @param name имя поля отчета
+         * @param type тип значений; для неизвестных типов значения хранятся как есть
+         */
+        public Builder column(String name, Class<?> type) {
+            if (built || size > 0) {
+                throw new IllegalStateException("Столбцы добавляются до первой строки");
+            }
+            if (columns.containsKey(name)) {
+                throw new IllegalArgumentException("Столбец " + name + " уже добавлен");
+            }
+            Column column = Column.of(type);
+            columns.put(name, column);
+            order = columns.values().toArray(new Column[0]);
+            return this;
+        }
+
+        /**
+         * Добавить строку
+         *
+         * @param values значения в порядке столбцов
+         */
+        public Builder row(Object... values) {
+            if (built) {
+                throw new IllegalStateException("Источник уже построен");
+            }
+            if (values.length != order.length) {
+                throw new IllegalArgumentException("Ожидалось значений: " + order.length + ", получено: " + values.length);
+            }
+            for (int i = 0; i < order.length; i++) {
+                Column column = order[i];
+                column.ensureCapacity(size + 1);
+                if (values[i] == null) {
+                    column.nulls.set(size);
+                } else {
+                    column.set(size, values[i]);
+                }
+            }
+            size++;
+            return this;
+        }
+
+        public ColumnarDataSource build() {
+            if (built) {
+                throw new IllegalStateException("Источник уже построен");
+            }
+            built = true;
+            for (Column column : order) {
+                column.trim(size);
+            }
+            return new ColumnarDataSource(new HashMap<>(columns), size);
+        }
+    }
+
+    private abstract static class Column {
+        private final BitSet nulls = new BitSet();
+
+        static Column of(Class<?> type) {
+            if (type == String.class) {
+                return new StringColumn();
+            }
+            if (type == Long.class || type == long.class || type == Integer.class || type == int.class
+                    || type == Short.class || type == short.class || type == Byte.class || type == byte.class) {
+                return new LongColumn(type);
+            }
+            if (type == Double.class || type == double.class || type == Float.class || type == float.class) {
+                return new DoubleColumn(type);
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                return new BooleanColumn();
+            }
+            if (type == BigDecimal.class) {
+                return new DecimalColumn();
+            }
+            if (type == Date.class) {
+                return new DateColumn();
+            }
+            if (type == LocalDate.class) {
+                return new LocalDateColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        abstract Object get(int row);
+
+        abstract void set(int row, Object value);
+
+        abstract int capacity();
+
+        abstract void resize(int capacity);
+
+        void ensureCapacity(int rows) {
+            if (rows > capacity()) {
+                resize(Math.max(16, Math.max(rows, capacity() * 2)));
+            }
+        }
+
+        void trim(int rows) {
+            if (rows < capacity()) {
+                resize(rows);
+            }
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private String[] values;
+        private int[] rows = new int[0];
+
+        @Override
+        Object get(int row) {
+            return values[rows[row]];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            rows[row] = codes.computeIfAbsent((String) value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+
+        @Override
+        int capacity() {
+            return rows.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            rows = Arrays.copyOf(rows, capacity);
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            values = dictionary.toArray(new String[0]);
+            codes.clear();
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private final Class<?> type;
+        private long[] values = new long[0];
+
+        LongColumn(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object get(int row) {
+            long value = values[row];
+            if (type == Integer.class || type == int.class) {
+                return (int) value;
+            }
+            if (type == Short.class || type == short.class) {
+                return (short) value;
+            }
+            if (type == Byte.class || type == byte.class) {
+                return (byte) value;
+            }
+            return value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private final boolean single;
+        private double[] values = new double[0];
+
+        DoubleColumn(Class<?> type) {
+            this.single = type == Float.class || type == float.class;
+        }
+
+        @Override
+        Object get(int row) {
+            return single ? (Object) (float) values[row] : (Object) values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private final BitSet values = new BitSet();
+        private int capacity;
+
+        @Override
+        Object get(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values.set(row, (Boolean) value);
+        }
+
+        @Override
+        int capacity() {
+            return capacity;
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Денежные суммы: немасштабированное значение и масштаб; значения шире long хранятся отдельно
+     */
+    private static final class DecimalColumn extends Column {
+        private final Map<Integer, BigDecimal> wide = new HashMap<>();
+        private long[] unscaled = new long[0];
+        private byte[] scales = new byte[0];
+
+        @Override
+        Object get(int row) {
+            BigDecimal value = wide.get(row);
+            return value != null ? value : BigDecimal.valueOf(unscaled[row], scales[row]);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            BigDecimal decimal = (BigDecimal) value;
+            BigInteger unscaledValue = decimal.unscaledValue();
+            if (unscaledValue.bitLength() < Long.SIZE && decimal.scale() == (byte) decimal.scale()) {
+                unscaled[row] = unscaledValue.longValue();
+                scales[row] = (byte) decimal.scale();
+            } else {
+                wide.put(row, decimal);
+            }
+        }
+
+        @Override
+        int capacity() {
+            return unscaled.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            unscaled = Arrays.copyOf(unscaled, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+        }
+    }
+
+    private static final class DateColumn extends Column {
+        private long[] millis = new long[0];
+
+        @Override
+        Object get(int row) {
+            return new Date(millis[row]);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            millis[row] = ((Date) value).getTime();
+        }
+
+        @Override
+        int capacity() {
+            return millis.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            millis = Arrays.copyOf(millis, capacity);
+        }
+    }
+
+    private static final class LocalDateColumn extends Column {
+        private int[] days = new int[0];
+
+        @Override
+        Object get(int row) {
+            return LocalDate.ofEpochDay(days[row]);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            days[row] = Math.toIntExact(((LocalDate) value).toEpochDay());
+        }
+
+        @Override
+        int capacity() {
+            return days.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            days = Arrays.copyOf(days, capacity);
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
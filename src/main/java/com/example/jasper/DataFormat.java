@@ -0,0 +1,28 @@
+package com.example.jasper;
+
+/**
+ * Формат выгрузки данных отчета без верстки ({@link ReportDataExporter})
+ */
+public enum DataFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),
+    /**
+     * Книга Excel, строки пишутся потоково через SXSSF
+     */
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
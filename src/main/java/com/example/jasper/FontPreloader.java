@@ -0,0 +1,115 @@
+package com.example.jasper;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.BaseFont;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fonts.FontFace;
+import net.sf.jasperreports.engine.fonts.FontFamily;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Предварительная загрузка шрифтов из расширения efr-fonts.xml.
+ * Без нее каждое семейство разбирается при первом отчете, который его использует.
+ * Разобранные шрифты хранятся там же, где их ищет JasperReports:
+ * java.awt.Font для расчета разметки кешируется в {@link FontFace} расширения,
+ * {@link BaseFont} для PDF - в общем кеше iText по ключу имя/кодировка/встраивание,
+ * с теми же параметрами, с которыми шрифт запрашивает JRPdfExporter.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FontPreloader {
+
+    private final ReportProperties properties;
+    private final ReportMetrics metrics;
+    private volatile List<FontFamilyStats> families = Collections.emptyList();
+
+    @PostConstruct
+    public void preload() {
+        if (!properties.getFonts().isPreload()) {
+            return;
+        }
+        long started = System.nanoTime();
+        JasperReportsContext context = DefaultJasperReportsContext.getInstance();
+        RepositoryUtil repository = RepositoryUtil.getInstance(context);
+        List<FontFamilyStats> loaded = new ArrayList<>();
+        long total = 0;
+        for (FontFamily family : context.getExtensions(FontFamily.class)) {
+            FontFamilyStats stats = preload(family, repository);
+            metrics.fontFamily(stats.getFamily(), stats.getBytes());
+            log.debug("Шрифт {}: файлов {}, {} КБ, {} мс",
+                    stats.getFamily(), stats.getFiles(), stats.getBytes() / 1024, stats.getLoadMillis());
+            loaded.add(stats);
+            total += stats.getBytes();
+        }
+        families = Collections.unmodifiableList(loaded);
+        log.info("Загружено семейств шрифтов: {}, {} КБ за {} мс",
+                loaded.size(), total / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Загруженные семейства шрифтов и занимаемая ими память
+     *
+     * @return статистика по семействам
+     */
+    public List<FontFamilyStats> families() {
+        return families;
+    }
+
+    private static FontFamilyStats preload(FontFamily family, RepositoryUtil repository) {
+        long started = System.nanoTime();
+        Set<String> files = new HashSet<>();
+        long bytes = 0;
+        for (FontFace face : Arrays.asList(family.getNormalFace(), family.getBoldFace(),
+                family.getItalicFace(), family.getBoldItalicFace())) {
+            if (face == null || face.getTtf() == null || !files.add(face.getTtf())) {
+                continue;
+            }
+            try {
+                face.getFont();
+                byte[] content = repository.getBytesFromLocation(face.getTtf());
+                bytes += content.length;
+                if (family.getPdfEncoding() != null) {
+                    boolean embedded = Boolean.TRUE.equals(family.isPdfEmbedded());
+                    if (face.getPdf() != null) {
+                        BaseFont.createFont(face.getPdf(), family.getPdfEncoding(), embedded);
+                    } else {
+                        BaseFont.createFont(face.getTtf(), family.getPdfEncoding(), embedded, true, content, null);
+                    }
+                }
+            } catch (JRException | DocumentException | IOException | RuntimeException e) {
+                log.warn("Не удалось загрузить шрифт {} семейства {}", face.getTtf(), family.getName(), e);
+            }
+        }
+        return new FontFamilyStats(family.getName(), files.size(), bytes, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Семейство шрифтов в памяти
+     */
+    @Value
+    public static class FontFamilyStats {
+        String family;
+        int files;
+        /**
+         * Объем файлов шрифтов, которые держит разобранный шрифт
+         */
+        long bytes;
+        long loadMillis;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import net.sf.jasperreports.functions.annotations.Function;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Профилирование функций {@link TextFunctions} в выражениях отчетов.
+ * Функции вызываются из скомпилированных выражений напрямую (static import), поэтому для выборки
+ * запросов шаблон компилируется в отдельном варианте, где каждый вызов функции обернут в замер:
+ * {@code fn(args)} -> {@code FunctionProfiler.exit("sec", "fn", FunctionProfiler.nanos(), FunctionProfiler.allocatedBytes(), fn(args))}.
+ * Остальные запросы используют обычный шаблон и не несут накладных расходов.
+ * Время и аллокации учитываются с вложенными вызовами в аргументах.
+ */
+@Component
+@RequiredArgsConstructor
+public class FunctionProfiler {
+
+    private static final String SELF = FunctionProfiler.class.getName();
+    private static final Pattern EXPRESSION = Pattern.compile(
+            "(<(\\w*[Ee]xpression)\\b[^>]*><!\\[CDATA\\[)(.*?)(]]></\\2>)", Pattern.DOTALL);
+    private static final Set<String> FUNCTIONS = Arrays.stream(TextFunctions.class.getMethods())
+            .filter(method -> method.isAnnotationPresent(Function.class))
+            .map(Method::getName)
+            .collect(Collectors.toSet());
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATIONS = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+    private static final ConcurrentMap<String, ConcurrentMap<String, Counters>> STATS = new ConcurrentHashMap<>();
+
+    private final ReportProperties properties;
+
+    /**
+     * Профилировать ли очередное заполнение
+     *
+     * @return true для доли запросов jasper.profiling.sample-rate, если профилирование включено
+     */
+    public boolean sample() {
+        ReportProperties.Profiling profiling = properties.getProfiling();
+        return profiling.isEnabled() && ThreadLocalRandom.current().nextDouble() < profiling.getSampleRate();
+    }
+
+    /**
+     * Накопленная статистика, самые затратные функции первыми
+     *
+     * @return статистика по шаблонам и функциям
+     */
+    public List<FunctionStats> stats() {
+        List<FunctionStats> result = new ArrayList<>();
+        STATS.forEach((template, functions) -> functions.forEach((function, counters) -> {
+            long calls = counters.calls.sum();
+            long nanos = counters.nanos.sum();
+            result.add(new FunctionStats(template, function, calls, nanos / 1_000_000.0,
+                    calls == 0 ? 0 : nanos / calls, counters.bytes.sum()));
+        }));
+        result.sort(Comparator.comparingDouble(FunctionStats::getTotalMillis).reversed());
+        return result;
+    }
+
+    /**
+     * Сбросить статистику
+     */
+    public void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * Вариант шаблона с замером вызовов функций
+     *
+     * @param templateId идентификатор шаблона, под которым учитывается статистика
+     * @param jrxml      исходник шаблона
+     * @return исходник с обернутыми вызовами
+     */
+    static String instrument(String templateId, String jrxml) {
+        Matcher matcher = EXPRESSION.matcher(jrxml);
+        StringBuffer result = new StringBuffer(jrxml.length() + 1024);
+        while (matcher.find()) {
+            String expression = instrumentExpression(templateId, matcher.group(3), FUNCTIONS);
+            matcher.appendReplacement(result,
+                    Matcher.quoteReplacement(matcher.group(1) + expression + matcher.group(4)));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    static String instrumentExpression(String templateId, String expression, Set<String> functions) {
+        StringBuilder result = new StringBuilder(expression.length() * 2);
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (c == '"' || c == '\'') {
+                int end = skipLiteral(expression, i);
+                result.append(expression, i, end);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(expression.charAt(end))) {
+                    end++;
+                }
+                String name = expression.substring(i, end);
+                int open = skipSpaces(expression, end);
+                if (functions.contains(name) && open < length && expression.charAt(open) == '('
+                        && !isMemberAccess(expression, i)) {
+                    int close = matchingParenthesis(expression, open);
+                    if (close < 0) {
+                        result.append(expression, i, length);
+                        return result.toString();
+                    }
+                    String arguments = instrumentExpression(templateId, expression.substring(open + 1, close), functions);
+                    result.append(SELF).append(".exit(\"").append(templateId).append("\", \"").append(name).append("\", ")
+                            .append(SELF).append(".nanos(), ").append(SELF).append(".allocatedBytes(), ")
+                            .append(name).append('(').append(arguments).append("))");
+                    i = close + 1;
+                } else {
+                    result.append(name);
+                    i = end;
+                }
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isMemberAccess(String expression, int start) {
+        int i = start - 1;
+        while (i >= 0 && Character.isWhitespace(expression.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && expression.charAt(i) == '.';
+    }
+
+    private static int skipSpaces(String expression, int from) {
+        int i = from;
+        while (i < expression.length() && Character.isWhitespace(expression.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipLiteral(String expression, int start) {
+        char quote = expression.charAt(start);
+        int i = start + 1;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return expression.length();
+    }
+
+    private static int matchingParenthesis(String expression, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = skipLiteral(expression, i);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Отметка времени перед вызовом функции
+     */
+    public static long nanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Аллоцированные текущим потоком байты перед вызовом функции (0, если JVM не поддерживает замер)
+     */
+    public static long allocatedBytes() {
+        return ALLOCATIONS
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    /**
+     * Учесть вызов функции и вернуть ее результат
+     */
+    public static <T> T exit(String templateId, String function, long startedNanos, long startedBytes, T result) {
+        long nanos = System.nanoTime() - startedNanos;
+        long bytes = allocatedBytes() - startedBytes;
+        Counters counters = STATS.computeIfAbsent(templateId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(function, name -> new Counters());
+        counters.calls.increment();
+        counters.nanos.add(nanos);
+        counters.bytes.add(bytes);
+        return result;
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    /**
+     * Статистика вызовов одной функции в одном шаблоне
+     */
+    @Value
+    public static class FunctionStats {
+        String template;
+        String function;
+        long calls;
+        double totalMillis;
+        long averageNanos;
+        long allocatedBytes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Статистика профилирования функций отчетов: GET /actuator/functions, сброс - DELETE
+ */
+@Component
+@Endpoint(id = "functions")
+@RequiredArgsConstructor
+public class FunctionProfilerEndpoint {
+
+    private final FunctionProfiler profiler;
+
+    @ReadOperation
+    public List<FunctionProfiler.FunctionStats> stats() {
+        return profiler.stats();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
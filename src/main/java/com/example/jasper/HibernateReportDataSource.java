@@ -0,0 +1,130 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Источник данных из запроса Hibernate, который читает строки через {@link ScrollableResults}
+ * и не держит в сессии больше одной порции сущностей.
+ * Строки читаются порциями по chunkSize; вложенная коллекция первой строки порции инициализируется сразу,
+ * и благодаря {@link org.hibernate.annotations.BatchSize} коллекции всей порции загружаются одним запросом
+ * вместо N+1. Запрос с {@code left join fetch} тоже подходит (строки должны быть упорядочены по id).
+ * При переходе к следующей порции предыдущая вытесняется из сессии ({@link Session#evict}).
+ *
+ * @param <T> тип сущности
+ */
+public class HibernateReportDataSource<T> implements JRDataSource, AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private final Session session;
+    private final ScrollableResults results;
+    private final Function<? super T, ?> nested;
+    private final int chunkSize;
+    private final BeanFieldAccessors accessors = new BeanFieldAccessors(false);
+    private final List<T> chunk;
+    private int position = -1;
+    private boolean exhausted;
+    private boolean closed;
+
+    /**
+     * @param session   открытая сессия; не закрывается
+     * @param query     запрос сущностей
+     * @param fetchSize размер выборки JDBC
+     * @param chunkSize сколько сущностей держать в сессии одновременно
+     * @param nested    вложенная коллекция, которую нужно загрузить до выдачи строки, или null
+     */
+    public HibernateReportDataSource(Session session, Query<T> query, int fetchSize, int chunkSize,
+                                     Function<? super T, ?> nested) {
+        this.session = session;
+        this.nested = nested;
+        this.chunkSize = chunkSize;
+        this.chunk = new ArrayList<>(chunkSize);
+        this.results = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheable(false)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Продукты со строками {@link A}, упорядоченные по id
+     *
+     * @param session   открытая сессия
+     * @param fetchSize размер выборки JDBC
+     */
+    public static HibernateReportDataSource<Product> products(Session session, int fetchSize) {
+        return new HibernateReportDataSource<>(session,
+                session.createQuery("select p from Product p order by p.id", Product.class),
+                fetchSize, DEFAULT_CHUNK_SIZE, Product::getProducts);
+    }
+
+    @Override
+    public boolean next() {
+        if (closed) {
+            return false;
+        }
+        position++;
+        if (position >= chunk.size()) {
+            evictChunk();
+            if (!fillChunk()) {
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return accessors.getFieldValue(chunk.get(position), field);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        evictChunk();
+        results.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean fillChunk() {
+        while (!exhausted && chunk.size() < chunkSize) {
+            if (!results.next()) {
+                exhausted = true;
+                break;
+            }
+            T entity = (T) results.get(0);
+            if (chunk.isEmpty() || chunk.get(chunk.size() - 1) != entity) {
+                chunk.add(entity);
+            }
+        }
+        if (nested != null) {
+            for (T entity : chunk) {
+                Hibernate.initialize(nested.apply(entity));
+            }
+        }
+        position = 0;
+        return !chunk.isEmpty();
+    }
+
+    private void evictChunk() {
+        for (T entity : chunk) {
+            session.evict(entity);
+        }
+        chunk.clear();
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.jasper;
 
 import net.sf.jasperreports.engine.JRException;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -9,8 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class JasperApplication {
 
     public static void main(String[] args) throws JRException {
-        SpringApplication.run(JasperApplication.class, args);
-        Main.start();
+        SpringApplication.run(JasperApplication.class, args)
+                .getBean(Main.class)
+                .start();
     }
 
 }
@@ -1,7 +1,7 @@
 package com.example.jasper;
 
+import lombok.RequiredArgsConstructor;
 import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import net.sf.jasperreports.engine.export.JRPdfExporter;
 import net.sf.jasperreports.engine.util.JRSaver;
 import net.sf.jasperreports.export.SimpleExporterInput;
@@ -10,41 +10,42 @@ import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
 import net.sf.jasperreports.export.SimplePdfReportConfiguration;
 import org.springframework.stereotype.Component;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Component
+@RequiredArgsConstructor
 public class Main {
 
-    public static void start() throws JRException {
-        String path = "C:\\Users\\dagis\\IdeaProjects\\jasper\\sec.jrxml";
-        InputStream inputStream = null;
-        try {
-            inputStream = new FileInputStream(path);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+    private static final String TEMPLATE_ID = "sec";
+
+    private final ReportRenderer renderer;
 
+    public void start() throws JRException {
         List<A>products = new ArrayList<>();
         for (int i = 0; i < 3; i++) {
             A a = new A("АЙДdqqqqqИ "+i, "dfdf "+i);
             products.add(a);
         }
 
-        JRBeanCollectionDataSource beanCollectionDataSource = new JRBeanCollectionDataSource(Arrays.asList(
+        StreamingBeanDataSource<Product> dataSource = StreamingBeanDataSource.of(Stream.of(
 
                 new Product("666id", "666name", "666price", products)
 
-        ), false);
+        ));
         Map<String, Object>map = new HashMap<>();
         map.put("name", "qwewqeqwe");
-        JasperReport jasperReport = JasperCompileManager.compileReport(inputStream);
-        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, null, beanCollectionDataSource);
+        JasperPrint jasperPrint = renderer.fill(TEMPLATE_ID, Collections.emptyMap(), dataSource);
         System.out.print("AS");
 
-        JasperExportManager.exportReportToPdfFile(jasperPrint, "aaaaasd.pdf");
+        try (OutputStream outputStream = new FileOutputStream("aaaaasd.pdf")) {
+            renderer.exportPdf(TEMPLATE_ID, jasperPrint, outputStream);
+        } catch (IOException e) {
+            throw new JRException("Не удалось записать aaaaasd.pdf", e);
+        }
 //        JRPdfExporter exporter = new JRPdfExporter();
 //
 //        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
@@ -0,0 +1,23 @@
+package com.example.jasper;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запрос на объединение нескольких документов в один PDF
+ */
+@Data
+public class MergeRequest {
+    private List<Document> documents = new ArrayList<>();
+
+    @Data
+    public static class Document {
+        private String templateId;
+        private Map<String, Object> parameters = new HashMap<>();
+        private List<Product> products = new ArrayList<>();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.export.ExporterInput;
+import net.sf.jasperreports.export.ExporterInputItem;
+import net.sf.jasperreports.export.SimpleExporterInputItem;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Вход экспортера из нескольких документов, которые заполняются по одному по мере выгрузки.
+ * В памяти держится только текущий документ: при переходе к следующему ссылка на предыдущий
+ * {@link net.sf.jasperreports.engine.JasperPrint} отпускается, поэтому объем памяти не зависит
+ * от количества документов.
+ */
+final class MergedExporterInput implements ExporterInput {
+
+    private final List<ExporterInputItem> items;
+
+    MergedExporterInput(List<ReportDocument> documents, ReportRenderer renderer) {
+        this.items = new LazyItems(documents, renderer);
+    }
+
+    @Override
+    public List<ExporterInputItem> getItems() {
+        return items;
+    }
+
+    private static final class LazyItems extends AbstractList<ExporterInputItem> {
+        private final List<ReportDocument> documents;
+        private final ReportRenderer renderer;
+        private int currentIndex = -1;
+        private ExporterInputItem current;
+
+        LazyItems(List<ReportDocument> documents, ReportRenderer renderer) {
+            this.documents = documents;
+            this.renderer = renderer;
+        }
+
+        @Override
+        public ExporterInputItem get(int index) {
+            if (index != currentIndex) {
+                current = null;
+                ReportDocument document = documents.get(index);
+                try {
+                    current = new SimpleExporterInputItem(renderer.fill(document.getTemplateId(),
+                            document.getParameters(), document.getDataSource().get()));
+                } catch (JRException e) {
+                    throw new JRRuntimeException(e);
+                }
+                currentIndex = index;
+            }
+            return current;
+        }
+
+        @Override
+        public int size() {
+            return documents.size();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.jasper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Форматирование сумм с фиксированным количеством знаков после запятой и группировкой разрядов по три.
+ * Результат совпадает с {@link java.text.DecimalFormat} по шаблону "#,##0.00..." после округления HALF_UP,
+ * но цифры пишутся напрямую в буфер потока, без DigitList/StringBuffer на каждый вызов.
+ */
+final class MoneyFormat {
+
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final char MINUS = DecimalFormatSymbols.getInstance(new Locale("ru")).getMinusSign();
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * @param amount            сумма
+     * @param scale             количество знаков после разделителя
+     * @param decimalSeparator  разделитель дробной части
+     * @param groupingSeparator разделитель групп разрядов
+     * @return отформатированная сумма
+     */
+    static String format(BigDecimal amount, int scale, char decimalSeparator, char groupingSeparator) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("Отрицательное количество знаков: " + scale);
+        }
+        BigDecimal scaled = amount.setScale(scale, RoundingMode.HALF_UP);
+        boolean negative = scaled.signum() < 0;
+        if (scaled.precision() > MAX_LONG_DIGITS) {
+            return format(scaled.unscaledValue().abs().toString(), negative, scale, decimalSeparator, groupingSeparator);
+        }
+
+        long value = Math.abs(scaled.unscaledValue().longValue());
+        char[] buffer = buffer(scale + 2 * MAX_LONG_DIGITS);
+        int position = buffer.length;
+        for (int i = 0; i < scale; i++) {
+            buffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        if (scale > 0) {
+            buffer[--position] = decimalSeparator;
+        }
+        int group = 0;
+        do {
+            if (group == 3) {
+                buffer[--position] = groupingSeparator;
+                group = 0;
+            }
+            buffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+            group++;
+        } while (value != 0);
+        if (negative) {
+            buffer[--position] = MINUS;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    private static String format(String digits, boolean negative, int scale, char decimalSeparator, char groupingSeparator) {
+        if (digits.length() <= scale) {
+            StringBuilder padded = new StringBuilder(scale + 1);
+            for (int i = digits.length(); i <= scale; i++) {
+                padded.append('0');
+            }
+            digits = padded.append(digits).toString();
+        }
+        int integerDigits = digits.length() - scale;
+        char[] buffer = buffer(digits.length() + integerDigits / 3 + 2);
+        int position = buffer.length;
+        for (int i = digits.length() - 1; i >= integerDigits; i--) {
+            buffer[--position] = digits.charAt(i);
+        }
+        if (scale > 0) {
+            buffer[--position] = decimalSeparator;
+        }
+        for (int i = integerDigits - 1, group = 0; i >= 0; i--, group++) {
+            if (group == 3) {
+                buffer[--position] = groupingSeparator;
+                group = 0;
+            }
+            buffer[--position] = digits.charAt(i);
+        }
+        if (negative) {
+            buffer[--position] = MINUS;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    private static char[] buffer(int size) {
+        char[] buffer = BUFFER.get();
+        if (buffer.length < size) {
+            buffer = new char[size];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+}
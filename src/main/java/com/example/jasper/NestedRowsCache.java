@@ -0,0 +1,127 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Общий источник данных для вложенной коллекции строки.
+ * Коллекция строки один раз превращается в снимок: массив строк и по массиву значений на каждое поле,
+ * столбец заполняется при первом обращении к полю. Все подотчеты, списки и таблицы этой строки
+ * получают собственный курсор по одному снимку, поэтому вторая и последующие выборки не читают бины заново.
+ * Хранятся снимки нескольких последних коллекций (заголовок страницы и detail могут смотреть на разные строки).
+ * Экземпляр живет одно заполнение: новый кеш на каждое заполнение передает {@link ReportRenderer}
+ * (значение из запроса не принимается), значение по умолчанию в шаблоне нужно для заполнения в обход него.
+ * В шаблоне: {@code $P{NESTED_ROWS}.dataSource($F{products})}.
+ */
+public class NestedRowsCache {
+
+    /**
+     * Имя параметра отчета с кешем
+     */
+    public static final String PARAMETER = "NESTED_ROWS";
+
+    private static final int CAPACITY = 4;
+
+    private final Snapshot[] snapshots = new Snapshot[CAPACITY];
+    private int next;
+
+    /**
+     * Курсор по снимку коллекции
+     *
+     * @param rows вложенная коллекция строки
+     * @return новый источник данных, общий снимок для одной и той же коллекции
+     */
+    public JRRewindableDataSource dataSource(Collection<?> rows) {
+        return new Cursor(snapshot(rows));
+    }
+
+    private Snapshot snapshot(Collection<?> rows) {
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot != null && snapshot.source == rows) {
+                return snapshot;
+            }
+        }
+        Snapshot snapshot = new Snapshot(rows);
+        snapshots[next] = snapshot;
+        next = (next + 1) % CAPACITY;
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+        private static final Object[] EMPTY = new Object[0];
+
+        private final Collection<?> source;
+        private final Object[] rows;
+        private final Map<String, Object[]> columns = new HashMap<>();
+
+        private Snapshot(Collection<?> source) {
+            this.source = source;
+            this.rows = source == null ? EMPTY : source.toArray();
+        }
+
+        private Object[] column(JRField field) throws JRException {
+            Object[] column = columns.get(field.getName());
+            if (column == null) {
+                column = new Object[rows.length];
+                Class<?> type = null;
+                Function<Object, Object> accessor = null;
+                try {
+                    for (int i = 0; i < rows.length; i++) {
+                        Object row = rows[i];
+                        if (row == null) {
+                            continue;
+                        }
+                        if (row.getClass() != type) {
+                            type = row.getClass();
+                            accessor = BeanFieldAccessors.accessor(type, field.getName());
+                        }
+                        column[i] = accessor.apply(row);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new JRException("Не удалось получить значение поля " + field.getName(), e);
+                }
+                columns.put(field.getName(), column);
+            }
+            return column;
+        }
+    }
+
+    private static final class Cursor implements JRRewindableDataSource {
+        private final Snapshot snapshot;
+        private JRField lastField;
+        private Object[] lastColumn;
+        private int position = -1;
+
+        private Cursor(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean next() {
+            if (position < snapshot.rows.length) {
+                position++;
+            }
+            return position < snapshot.rows.length;
+        }
+
+        @Override
+        public Object getFieldValue(JRField field) throws JRException {
+            if (field != lastField) {
+                lastColumn = snapshot.column(field);
+                lastField = field;
+            }
+            return lastColumn[position];
+        }
+
+        @Override
+        public void moveFirst() {
+            position = -1;
+        }
+    }
+}
@@ -4,13 +4,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 import java.util.List;
 
 
+@Entity
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,9 +25,14 @@ import java.util.List;
 public class Product {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "uuid2")
+	@GenericGenerator(name = "uuid2", strategy = "uuid2")
 	private String id;
 	private String name;
 	private String price;
+	@ElementCollection
+	@CollectionTable(name = "product_item", joinColumns = @JoinColumn(name = "product_id"))
+	@OrderColumn(name = "item_index")
+	@BatchSize(size = HibernateReportDataSource.DEFAULT_CHUNK_SIZE)
 	private List<A> products;
 }
@@ -0,0 +1,52 @@
+package com.example.jasper;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Instant;
+
+/**
+ * Состояние асинхронного задания на формирование отчета.
+ * Неизменяемый снимок: каждое изменение состояния сохраняется на диск новым экземпляром.
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
+public class RenderJob {
+    String id;
+    String templateId;
+    /**
+     * Чем больше, тем раньше задание берется в работу
+     */
+    int priority;
+    Status status;
+    int attempts;
+    /**
+     * Сколько раз текущая попытка откладывалась из-за переполненной очереди формирования
+     */
+    int postponements;
+    String error;
+    Instant createdAt;
+    /**
+     * Время следующей попытки после ошибки
+     */
+    Instant nextAttemptAt;
+    Instant finishedAt;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        /**
+         * Исчерпаны попытки
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * HTTP API асинхронных заданий: постановка, состояние, ожидание и скачивание результата
+ */
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+public class RenderJobController {
+
+    private final RenderJobService jobService;
+
+    /**
+     * Поставить отчет в очередь
+     *
+     * @param templateId идентификатор шаблона
+     * @param priority   приоритет, больше - раньше
+     * @param request    параметры и данные отчета
+     * @return принятое задание
+     */
+    @PostMapping("/{templateId}")
+    public ResponseEntity<RenderJob> submit(@PathVariable String templateId,
+                                            @RequestParam(defaultValue = "0") int priority,
+                                            @RequestBody ReportRequest request) throws JRException, IOException {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(templateId, request, priority));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RenderJob> status(@PathVariable String id) {
+        return ResponseEntity.of(jobService.find(id));
+    }
+
+    /**
+     * Дождаться завершения задания, но не дольше timeout (и не дольше jasper.jobs.max-await)
+     */
+    @GetMapping("/{id}/await")
+    public ResponseEntity<RenderJob> await(@PathVariable String id,
+                                           @RequestParam(defaultValue = "30s") Duration timeout)
+            throws InterruptedException {
+        return ResponseEntity.of(jobService.await(id, timeout));
+    }
+
+    /**
+     * Скачать результат; 409, если задание еще не выполнено
+     */
+    @GetMapping("/{id}/pdf")
+    public ResponseEntity<Resource> pdf(@PathVariable String id) {
+        if (!jobService.find(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return jobService.result(id)
+                .<ResponseEntity<Resource>>map(file -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".pdf\"")
+                        .body(new FileSystemResource(file)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.jasper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Асинхронные задания на формирование отчетов.
+ * Задание и его данные сохраняются на диск ({@link RenderJobStore}) до подтверждения приема,
+ * поэтому после перезапуска ожидающие и прерванные задания продолжают выполняться.
+ * Задания выбираются по приоритету, при ошибке повторяются с экспоненциальной задержкой,
+ * результаты удаляются через jasper.jobs.result-ttl после завершения.
+ * Время формирования ограничено jasper.jobs.timeout, а не таймаутом HTTP-запросов; если очередь
+ * заполнения или выгрузки переполнена, задание откладывается без траты попытки, но не больше
+ * jasper.jobs.max-postponements раз подряд.
+ */
+@Slf4j
+@Service
+public class RenderJobService implements DisposableBean {
+
+    private static final Duration ADMISSION_RETRY = Duration.ofSeconds(1);
+
+    private static final Comparator<RenderJob> ORDER = Comparator.comparingInt(RenderJob::getPriority).reversed()
+            .thenComparing(RenderJob::getCreatedAt);
+
+    private final RenderJobStore store;
+    private final ReportRenderingService renderingService;
+    private final ReportMetrics metrics;
+    private final ReportProperties.Jobs settings;
+    private final ConcurrentMap<String, RenderJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<RenderJob>> completions = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<RenderJob> queue = new PriorityBlockingQueue<>(16, ORDER);
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    public RenderJobService(RenderJobStore store, ReportRenderingService renderingService, ReportMetrics metrics,
+                            ReportProperties properties) throws IOException {
+        this.store = store;
+        this.renderingService = renderingService;
+        this.metrics = metrics;
+        this.settings = properties.getJobs();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("report-jobs-scheduler-"));
+        this.workers = Executors.newFixedThreadPool(settings.getThreads(), new CustomizableThreadFactory("report-jobs-"));
+        recover();
+        for (int i = 0; i < settings.getThreads(); i++) {
+            workers.execute(this::work);
+        }
+        scheduler.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Поставить задание в очередь
+     *
+     * @param templateId идентификатор шаблона
+     * @param request    параметры и данные отчета
+     * @param priority   приоритет, больше - раньше
+     * @return принятое задание
+     */
+    public RenderJob submit(String templateId, ReportRequest request, int priority) throws JRException, IOException {
+        ReportTemplateRegistry.validate(templateId);
+        RenderJob job = RenderJob.builder()
+                .id(UUID.randomUUID().toString())
+                .templateId(templateId)
+                .priority(priority)
+                .status(RenderJob.Status.QUEUED)
+                .createdAt(Instant.now())
+                .build();
+        store.saveRequest(job.getId(), request);
+        store.save(job);
+        jobs.put(job.getId(), job);
+        queue.add(job);
+        return job;
+    }
+
+    /**
+     * Текущее состояние задания
+     */
+    public Optional<RenderJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Дождаться завершения задания
+     *
+     * @param id      идентификатор задания
+     * @param timeout максимальное время ожидания, не больше jasper.jobs.max-await
+     * @return состояние задания на момент завершения или истечения таймаута
+     */
+    public Optional<RenderJob> await(String id, Duration timeout) throws InterruptedException {
+        RenderJob job = jobs.get(id);
+        if (job == null || job.isFinished()) {
+            return Optional.ofNullable(job);
+        }
+        CompletableFuture<RenderJob> completion = completions.computeIfAbsent(id, key -> new CompletableFuture<>());
+        job = jobs.get(id);
+        if (job == null || job.isFinished()) {
+            return Optional.ofNullable(job);
+        }
+        Duration wait = timeout.compareTo(settings.getMaxAwait()) > 0 ? settings.getMaxAwait() : timeout;
+        try {
+            return Optional.of(completion.get(wait.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return Optional.ofNullable(jobs.get(id));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Файл с результатом, если задание выполнено
+     */
+    public Optional<Path> result(String id) {
+        RenderJob job = jobs.get(id);
+        if (job == null || job.getStatus() != RenderJob.Status.DONE) {
+            return Optional.empty();
+        }
+        return Optional.of(store.result(id));
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    private void recover() throws IOException {
+        for (RenderJob job : store.loadAll()) {
+            if (job.isFinished()) {
+                jobs.put(job.getId(), job);
+                continue;
+            }
+            RenderJob queued = job.toBuilder().status(RenderJob.Status.QUEUED).build();
+            store.save(queued);
+            jobs.put(queued.getId(), queued);
+            enqueue(queued);
+        }
+        log.info("Восстановлено заданий: {}, в очереди: {}", jobs.size(), queue.size());
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            RenderJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            run(job);
+        }
+    }
+
+    private void run(RenderJob queued) {
+        RenderJob job = queued.toBuilder()
+                .status(RenderJob.Status.RUNNING)
+                .attempts(queued.getAttempts() + 1)
+                .nextAttemptAt(null)
+                .build();
+        try {
+            update(job);
+            ReportRequest request = store.loadRequest(job.getId());
+            Path temp = store.tempResult(job.getId());
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                renderingService.render(job.getTemplateId(), request.getParameters(),
+                        new BeanAccessorDataSource(request.getProducts()), request.getVirtualized(), () -> outputStream,
+                        settings.getTimeout());
+            }
+            store.commitResult(job.getId(), temp);
+            finish(job.toBuilder().status(RenderJob.Status.DONE).error(null).finishedAt(Instant.now()).build());
+        } catch (RejectedExecutionException e) {
+            // очередь этапа переполнена запросами HTTP. Отказ заполнения приходит до начала работы, а в режиме
+            // PIPELINED отказ выгрузки - уже после заполнения, поэтому бесплатных откладываний не больше max-postponements
+            postpone(queued, job, e);
+        } catch (InterruptedException e) {
+            // остановка приложения: задание останется в очереди и продолжится после перезапуска
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed(job, e);
+        }
+    }
+
+    private void failed(RenderJob job, Exception error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (job.getAttempts() >= settings.getMaxAttempts()) {
+            log.warn("Задание {} ({}) не выполнено за {} попыток", job.getId(), job.getTemplateId(), job.getAttempts(), error);
+            finish(job.toBuilder().status(RenderJob.Status.FAILED).error(message).finishedAt(Instant.now()).build());
+            return;
+        }
+        long delay = settings.getBackoff().toMillis() << Math.min(job.getAttempts() - 1, 20);
+        RenderJob retry = job.toBuilder()
+                .status(RenderJob.Status.QUEUED)
+                .postponements(0)
+                .error(message)
+                .nextAttemptAt(Instant.now().plusMillis(delay))
+                .build();
+        log.info("Задание {} будет повторено через {} мс: {}", job.getId(), delay, message);
+        try {
+            update(retry);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить задание {}", job.getId(), e);
+        }
+        enqueue(retry);
+    }
+
+    private void postpone(RenderJob queued, RenderJob job, RejectedExecutionException error) {
+        metrics.jobPostponed();
+        if (queued.getPostponements() >= settings.getMaxPostponements()) {
+            failed(job, error);
+            return;
+        }
+        RenderJob postponed = queued.toBuilder()
+                .status(RenderJob.Status.QUEUED)
+                .postponements(queued.getPostponements() + 1)
+                .nextAttemptAt(Instant.now().plus(ADMISSION_RETRY))
+                .build();
+        log.debug("Задание {} отложено ({} раз): очередь формирования занята", queued.getId(), postponed.getPostponements());
+        try {
+            update(postponed);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить задание {}", queued.getId(), e);
+        }
+        enqueue(postponed);
+    }
+
+    private void finish(RenderJob job) {
+        try {
+            update(job);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить задание {}", job.getId(), e);
+        }
+        CompletableFuture<RenderJob> completion = completions.remove(job.getId());
+        if (completion != null) {
+            completion.complete(job);
+        }
+    }
+
+    private void update(RenderJob job) throws IOException {
+        store.save(job);
+        jobs.put(job.getId(), job);
+    }
+
+    private void enqueue(RenderJob job) {
+        long delay = job.getNextAttemptAt() == null ? 0
+                : Duration.between(Instant.now(), job.getNextAttemptAt()).toMillis();
+        if (delay <= 0) {
+            queue.add(job);
+        } else {
+            scheduler.schedule(() -> queue.add(job), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void expire() {
+        Instant expired = Instant.now().minus(settings.getResultTtl());
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(expired)) {
+                return false;
+            }
+            try {
+                store.delete(job.getId());
+            } catch (IOException e) {
+                log.warn("Не удалось удалить задание {}", job.getId(), e);
+            }
+            return true;
+        });
+    }
+}
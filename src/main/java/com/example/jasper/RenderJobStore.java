@@ -0,0 +1,99 @@
+package com.example.jasper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Хранение заданий в локальном каталоге: состояние (id.json), входные данные (id.request.json)
+ * и результат (id.pdf). Файлы пишутся через временный файл и атомарное переименование,
+ * поэтому после перезапуска в каталоге нет недописанных заданий.
+ */
+@Slf4j
+@Component
+public class RenderJobStore {
+
+    private static final String STATE = ".json";
+    private static final String REQUEST = ".request.json";
+    private static final String RESULT = ".pdf";
+    private static final String TEMP = ".tmp";
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+
+    public RenderJobStore(ObjectMapper objectMapper, ReportProperties properties) throws IOException {
+        this.objectMapper = objectMapper;
+        this.dir = Files.createDirectories(Paths.get(properties.getJobs().getDir()));
+    }
+
+    public void save(RenderJob job) throws IOException {
+        write(job.getId() + STATE, objectMapper.writeValueAsBytes(job));
+    }
+
+    public void saveRequest(String id, ReportRequest request) throws IOException {
+        write(id + REQUEST, objectMapper.writeValueAsBytes(request));
+    }
+
+    public ReportRequest loadRequest(String id) throws IOException {
+        return objectMapper.readValue(dir.resolve(id + REQUEST).toFile(), ReportRequest.class);
+    }
+
+    /**
+     * Все сохраненные задания; поврежденные файлы пропускаются
+     */
+    public List<RenderJob> loadAll() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.endsWith(STATE) && !name.endsWith(REQUEST);
+            }).collect(Collectors.toList());
+        }
+        List<RenderJob> jobs = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try {
+                jobs.add(objectMapper.readValue(file.toFile(), RenderJob.class));
+            } catch (IOException e) {
+                log.warn("Не удалось прочитать задание {}", file, e);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Временный файл для результата; после записи передается в {@link #commitResult}
+     */
+    public Path tempResult(String id) {
+        return dir.resolve(id + RESULT + TEMP);
+    }
+
+    public void commitResult(String id, Path temp) throws IOException {
+        Files.move(temp, result(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path result(String id) {
+        return dir.resolve(id + RESULT);
+    }
+
+    public void delete(String id) throws IOException {
+        for (String suffix : new String[]{STATE, REQUEST, RESULT, RESULT + TEMP}) {
+            Files.deleteIfExists(dir.resolve(id + suffix));
+        }
+    }
+
+    private void write(String name, byte[] content) throws IOException {
+        Path temp = dir.resolve(name + TEMP);
+        Files.write(temp, content);
+        Files.move(temp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.jasper;
+
+/**
+ * Режим формирования отчета
+ */
+public enum RenderingMode {
+    /**
+     * Заполнение и выгрузка в PDF подряд в одном потоке пула заполнения
+     */
+    SEQUENTIAL,
+    /**
+     * Заполнение и выгрузка в разных пулах: заполненный отчет передается в очередь выгрузки
+     */
+    PIPELINED
+}
@@ -0,0 +1,166 @@
+package com.example.jasper;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP API формирования отчетов
+ */
+@RestController
+@RequestMapping("/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReportRenderingService renderingService;
+    private final BatchRenderingService batchService;
+    private final ObjectMapper objectMapper;
+    private final ReportOutputCache outputCache;
+    private final ReportDataExporter dataExporter;
+
+    /**
+     * Сформировать PDF и записать его прямо в ответ
+     *
+     * @param templateId идентификатор шаблона
+     * @param request    параметры и данные отчета
+     * @param response   HTTP ответ
+     */
+    @PostMapping("/{templateId}/pdf")
+    public void pdf(@PathVariable String templateId, @RequestBody ReportRequest request,
+                    HttpServletResponse response)
+            throws JRException, IOException, TimeoutException, InterruptedException {
+        if (outputCache.isEnabled()) {
+            String key = outputCache.key(templateId, request.getParameters(), request.getProducts());
+            byte[] pdf = outputCache.get(key, () -> {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                renderingService.render(templateId, request.getParameters(),
+                        new BeanAccessorDataSource(request.getProducts()), request.getVirtualized(), () -> outputStream);
+                return outputStream.toByteArray();
+            });
+            pdfHeaders(response, templateId).write(pdf);
+        } else {
+            renderingService.render(templateId, request.getParameters(),
+                    new BeanAccessorDataSource(request.getProducts()),
+                    request.getVirtualized(),
+                    () -> pdfHeaders(response, templateId));
+        }
+        response.flushBuffer();
+    }
+
+    private static OutputStream pdfHeaders(HttpServletResponse response, String templateId) throws IOException {
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + templateId + ".pdf\"");
+        return response.getOutputStream();
+    }
+
+    /**
+     * Объединить несколько документов в один PDF (например, книгу выписок для печати)
+     *
+     * @param request  документы в порядке следования
+     * @param response HTTP ответ
+     */
+    @PostMapping("/merged/pdf")
+    public void mergedPdf(@RequestBody MergeRequest request, HttpServletResponse response)
+            throws JRException, IOException, TimeoutException, InterruptedException {
+        List<ReportDocument> documents = request.getDocuments().stream()
+                .map(document -> new ReportDocument(document.getTemplateId(), document.getParameters(),
+                        () -> new BeanAccessorDataSource(document.getProducts())))
+                .collect(Collectors.toList());
+        renderingService.renderMerged(documents, () -> {
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"merged.pdf\"");
+            return response.getOutputStream();
+        });
+        response.flushBuffer();
+    }
+
+    /**
+     * Сформировать PDF на каждую запись из JSON-массива и отдать их ZIP-архивом.
+     * Массив читается по мере обработки, ошибки по записям пишутся в errors.txt внутри архива.
+     *
+     * @param templateId идентификатор шаблона
+     * @param request    HTTP запрос с JSON-массивом записей
+     * @param response   HTTP ответ
+     */
+    @PostMapping(value = "/{templateId}/batch", produces = "application/zip")
+    public void batch(@PathVariable String templateId, HttpServletRequest request, HttpServletResponse response)
+            throws JRException, IOException, InterruptedException {
+        try (MappingIterator<Product> records = objectMapper.readerFor(Product.class).readValues(request.getInputStream())) {
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + templateId + ".zip\"");
+            batchService.renderZip(templateId, Collections.emptyMap(), records, response.getOutputStream());
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * Выгрузить данные таблицы шаблона в CSV или XLSX без верстки.
+     * Записи JSON-массива читаются по одной и сразу пишутся в ответ.
+     *
+     * @param templateId идентификатор шаблона
+     * @param format     формат выгрузки
+     * @param request    HTTP запрос с JSON-массивом записей
+     * @param response   HTTP ответ
+     */
+    @PostMapping("/{templateId}/data")
+    public void data(@PathVariable String templateId, @RequestParam(defaultValue = "CSV") DataFormat format,
+                     HttpServletRequest request, HttpServletResponse response) throws JRException, IOException {
+        try (MappingIterator<Product> records = objectMapper.readerFor(Product.class).readValues(request.getInputStream())) {
+            response.setContentType(format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + templateId + "." + format.getExtension() + "\"");
+            dataExporter.export(templateId, StreamingBeanDataSource.of(records), format, response.getOutputStream());
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * Глубина очередей и загрузка этапов заполнения и выгрузки
+     *
+     * @return статистика по этапам
+     */
+    @GetMapping("/stages")
+    public List<StageStats> stages() {
+        List<StageStats> stages = new ArrayList<>(renderingService.stageStats());
+        stages.add(batchService.stats());
+        return stages;
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Сервис перегружен, повторите запрос позже");
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> timeout(TimeoutException e) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body("Превышено время формирования отчета");
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.components.table.BaseColumn;
+import net.sf.jasperreports.components.table.Cell;
+import net.sf.jasperreports.components.table.Column;
+import net.sf.jasperreports.components.table.ColumnGroup;
+import net.sf.jasperreports.components.table.TableComponent;
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRComponentElement;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JRElementGroup;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRExpressionChunk;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRStaticText;
+import net.sf.jasperreports.engine.JRTextField;
+import net.sf.jasperreports.engine.JasperReport;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выгрузка данных отчета в CSV или XLSX без верстки.
+ * Столбцы берутся из шаблона: поля ячеек detail первой таблицы, а если таблицы нет - поля текстовых полей
+ * полосы detail. Строки читаются из источника и сразу пишутся в поток, без заполнения страниц и измерения
+ * текста, поэтому память не зависит от объема, а скорость упирается в ввод-вывод.
+ * Если таблица работает по вложенной коллекции строки ({@code $P{NESTED_ROWS}.dataSource($F{products})}),
+ * выгружаются строки этих коллекций подряд по всем строкам основного источника.
+ */
+@Component
+public class ReportDataExporter {
+
+    private final ReportTemplateRegistry templates;
+    private final ReportMetrics metrics;
+    private final ReportProperties.DataExport settings;
+
+    public ReportDataExporter(ReportTemplateRegistry templates, ReportMetrics metrics, ReportProperties properties) {
+        this.templates = templates;
+        this.metrics = metrics;
+        this.settings = properties.getDataExport();
+    }
+
+    /**
+     * Выгрузить данные отчета
+     *
+     * @param templateId   идентификатор шаблона
+     * @param dataSource   основной источник данных
+     * @param format       формат
+     * @param outputStream поток для записи; не закрывается
+     * @return количество выгруженных строк
+     */
+    public long export(String templateId, JRDataSource dataSource, DataFormat format, OutputStream outputStream)
+            throws JRException {
+        DataLayout layout = layout(templates.get(templateId));
+        return metrics.time(templateId, ReportMetrics.Phase.DATA_EXPORT, () -> {
+            try (RowWriter writer = format == DataFormat.XLSX
+                    ? new XlsxWriter(outputStream, settings.getXlsxWindow())
+                    : new CsvWriter(outputStream, settings.getCsvSeparator())) {
+                long rows = write(layout, dataSource, writer);
+                writer.finish();
+                return rows;
+            } catch (IOException e) {
+                throw new JRException("Не удалось выгрузить данные отчета " + templateId, e);
+            }
+        });
+    }
+
+    static long write(DataLayout layout, JRDataSource dataSource, RowWriter writer) throws JRException, IOException {
+        writer.header(layout.titles());
+        Object[] values = new Object[layout.columns.size()];
+        long rows = 0;
+        while (dataSource.next()) {
+            if (layout.nestedField == null) {
+                writeRow(layout, dataSource, values, writer);
+                rows++;
+                continue;
+            }
+            JRDataSource nested = nested(dataSource.getFieldValue(layout.nestedField));
+            while (nested != null && nested.next()) {
+                writeRow(layout, nested, values, writer);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static void writeRow(DataLayout layout, JRDataSource source, Object[] values, RowWriter writer)
+            throws JRException, IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = source.getFieldValue(layout.columns.get(i).field);
+        }
+        writer.row(values);
+    }
+
+    private static JRDataSource nested(Object value) throws JRException {
+        if (value == null || value instanceof JRDataSource) {
+            return (JRDataSource) value;
+        }
+        if (value instanceof Collection) {
+            return new BeanAccessorDataSource((Collection<?>) value);
+        }
+        throw new JRException("Вложенные строки должны быть коллекцией или JRDataSource: " + value.getClass().getName());
+    }
+
+    /**
+     * Столбцы выгрузки по шаблону
+     */
+    static DataLayout layout(JasperReport report) throws JRException {
+        List<JRBand> bands = new ArrayList<>();
+        if (report.getDetailSection() != null && report.getDetailSection().getBands() != null) {
+            bands.addAll(Arrays.asList(report.getDetailSection().getBands()));
+        }
+        for (JRBand band : new JRBand[]{report.getTitle(), report.getPageHeader(), report.getColumnHeader(),
+                report.getColumnFooter(), report.getPageFooter(), report.getSummary()}) {
+            if (band != null) {
+                bands.add(band);
+            }
+        }
+        for (JRBand band : bands) {
+            TableComponent table = findTable(band);
+            if (table != null) {
+                return tableLayout(report, table);
+            }
+        }
+        Map<String, String> titles = new LinkedHashMap<>();
+        if (report.getDetailSection() != null && report.getDetailSection().getBands() != null) {
+            for (JRBand band : report.getDetailSection().getBands()) {
+                collectFields(band, titles);
+            }
+        }
+        return new DataLayout(null, columns(report.getMainDataset(), titles, report.getName()));
+    }
+
+    private static DataLayout tableLayout(JasperReport report, TableComponent table) throws JRException {
+        String datasetName = table.getDatasetRun().getDatasetName();
+        JRDataset dataset = Arrays.stream(report.getDatasets() == null ? new JRDataset[0] : report.getDatasets())
+                .filter(candidate -> candidate.getName().equals(datasetName))
+                .findFirst()
+                .orElseThrow(() -> new JRException("Нет набора данных " + datasetName + " в " + report.getName()));
+        String nestedName = firstField(table.getDatasetRun().getDataSourceExpression());
+        if (nestedName == null) {
+            throw new JRException("Источник данных таблицы в " + report.getName() + " должен строиться из поля $F{...}");
+        }
+        JRField nestedField = field(report.getMainDataset(), nestedName, report.getName());
+        Map<String, String> titles = new LinkedHashMap<>();
+        collectColumns(table.getColumns(), titles);
+        return new DataLayout(nestedField, columns(dataset, titles, report.getName()));
+    }
+
+    private static void collectColumns(List<BaseColumn> columns, Map<String, String> titles) {
+        for (BaseColumn baseColumn : columns) {
+            if (baseColumn instanceof ColumnGroup) {
+                collectColumns(((ColumnGroup) baseColumn).getColumns(), titles);
+            } else if (baseColumn instanceof Column) {
+                Map<String, String> cellFields = new LinkedHashMap<>();
+                collectFields(((Column) baseColumn).getDetailCell(), cellFields);
+                String header = headerText(baseColumn.getColumnHeader());
+                cellFields.forEach((name, title) -> titles.putIfAbsent(name,
+                        header != null && cellFields.size() == 1 ? header : title));
+            }
+        }
+    }
+
+    private static String headerText(Cell header) {
+        if (header == null || header.getElements() == null) {
+            return null;
+        }
+        for (JRElement element : header.getElements()) {
+            if (element instanceof JRStaticText) {
+                return ((JRStaticText) element).getText();
+            }
+        }
+        return null;
+    }
+
+    private static TableComponent findTable(JRElementGroup group) {
+        if (group == null || group.getElements() == null) {
+            return null;
+        }
+        for (JRElement element : group.getElements()) {
+            if (element instanceof JRComponentElement
+                    && ((JRComponentElement) element).getComponent() instanceof TableComponent) {
+                return (TableComponent) ((JRComponentElement) element).getComponent();
+            }
+            if (element instanceof JRElementGroup) {
+                TableComponent table = findTable((JRElementGroup) element);
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Поля, на которые ссылаются текстовые поля группы, в порядке появления
+     */
+    private static void collectFields(JRElementGroup group, Map<String, String> titles) {
+        if (group == null || group.getElements() == null) {
+            return;
+        }
+        for (JRElement element : group.getElements()) {
+            if (element instanceof JRTextField) {
+                JRExpressionChunk[] chunks = ((JRTextField) element).getExpression() == null
+                        ? null : ((JRTextField) element).getExpression().getChunks();
+                for (JRExpressionChunk chunk : chunks == null ? new JRExpressionChunk[0] : chunks) {
+                    if (chunk.getType() == JRExpressionChunk.TYPE_FIELD) {
+                        titles.putIfAbsent(chunk.getText(), chunk.getText());
+                    }
+                }
+            } else if (element instanceof JRElementGroup) {
+                collectFields((JRElementGroup) element, titles);
+            }
+        }
+    }
+
+    private static String firstField(JRExpression expression) {
+        if (expression == null || expression.getChunks() == null) {
+            return null;
+        }
+        for (JRExpressionChunk chunk : expression.getChunks()) {
+            if (chunk.getType() == JRExpressionChunk.TYPE_FIELD) {
+                return chunk.getText();
+            }
+        }
+        return null;
+    }
+
+    private static List<DataColumn> columns(JRDataset dataset, Map<String, String> titles, String reportName)
+            throws JRException {
+        if (titles.isEmpty()) {
+            throw new JRException("В шаблоне " + reportName + " нет полей для выгрузки данных");
+        }
+        List<DataColumn> columns = new ArrayList<>(titles.size());
+        for (Map.Entry<String, String> title : titles.entrySet()) {
+            columns.add(new DataColumn(title.getValue(), field(dataset, title.getKey(), reportName)));
+        }
+        return columns;
+    }
+
+    private static JRField field(JRDataset dataset, String name, String reportName) throws JRException {
+        for (JRField field : dataset.getFields() == null ? new JRField[0] : dataset.getFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new JRException("Нет поля " + name + " в шаблоне " + reportName);
+    }
+
+    static final class DataLayout {
+        /**
+         * Поле основного источника с вложенными строками; null - строки берутся из основного источника
+         */
+        private final JRField nestedField;
+        private final List<DataColumn> columns;
+
+        DataLayout(JRField nestedField, List<DataColumn> columns) {
+            this.nestedField = nestedField;
+            this.columns = columns;
+        }
+
+        List<String> titles() {
+            List<String> titles = new ArrayList<>(columns.size());
+            for (DataColumn column : columns) {
+                titles.add(column.title);
+            }
+            return titles;
+        }
+    }
+
+    private static final class DataColumn {
+        private final String title;
+        private final JRField field;
+
+        DataColumn(String title, JRField field) {
+            this.title = title;
+            this.field = field;
+        }
+    }
+
+    interface RowWriter extends AutoCloseable {
+        void header(List<String> titles) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        /**
+         * Дописать документ в поток; вызывается только после успешной записи всех строк
+         */
+        void finish() throws IOException;
+
+        /**
+         * Освободить ресурсы; поток не закрывается, незавершенный документ в него не пишется
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * CSV по RFC 4180 в UTF-8 с BOM, чтобы Excel правильно открыл кириллицу
+     */
+    static final class CsvWriter implements RowWriter {
+        private final Writer writer;
+        private final char separator;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        CsvWriter(OutputStream outputStream, char separator) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            this.separator = separator;
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public void header(List<String> titles) throws IOException {
+            row(titles.toArray());
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(separator);
+                }
+                write(format(values[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        private String format(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).toPlainString();
+            }
+            if (value instanceof Date) {
+                return dateFormat.format((Date) value);
+            }
+            return value.toString();
+        }
+
+        private void write(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == separator || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // буфер принадлежит потоку вызывающего, закрывать нечего
+        }
+    }
+
+    /**
+     * XLSX через SXSSF: в памяти только последние строки, при переполнении листа начинается следующий
+     */
+    static final class XlsxWriter implements RowWriter {
+        private static final int MAX_ROW = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+        private final OutputStream outputStream;
+        private final SXSSFWorkbook workbook;
+        private final CellStyle dateStyle;
+        private List<String> titles;
+        private Sheet sheet;
+        private int rowIndex;
+
+        XlsxWriter(OutputStream outputStream, int window) {
+            this.outputStream = outputStream;
+            this.workbook = new SXSSFWorkbook(window);
+            workbook.setCompressTempFiles(true);
+            this.dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy hh:mm:ss"));
+        }
+
+        @Override
+        public void header(List<String> titles) {
+            this.titles = titles;
+            newSheet();
+        }
+
+        private void newSheet() {
+            sheet = workbook.createSheet("Данные " + (workbook.getNumberOfSheets() + 1));
+            Row row = sheet.createRow(0);
+            for (int i = 0; i < titles.size(); i++) {
+                row.createCell(i).setCellValue(titles.get(i));
+            }
+            rowIndex = 1;
+        }
+
+        @Override
+        public void row(Object[] values) {
+            if (rowIndex > MAX_ROW) {
+                newSheet();
+            }
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                org.apache.poi.ss.usermodel.Cell cell = row.createCell(i);
+                if (value instanceof Number) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else if (value instanceof Boolean) {
+                    cell.setCellValue((Boolean) value);
+                } else if (value instanceof Date) {
+                    cell.setCellValue((Date) value);
+                    cell.setCellStyle(dateStyle);
+                } else {
+                    cell.setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            workbook.write(outputStream);
+            outputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.dispose();
+            } finally {
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.jasper;
+
+import lombok.Value;
+import net.sf.jasperreports.engine.JRDataSource;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Один документ в составе объединенного PDF
+ */
+@Value
+public class ReportDocument {
+    String templateId;
+    Map<String, Object> parameters;
+    /**
+     * Источник данных создается только перед заполнением документа
+     */
+    Supplier<? extends JRDataSource> dataSource;
+}
@@ -0,0 +1,143 @@
+package com.example.jasper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.renderers.DataRenderable;
+import net.sf.jasperreports.renderers.DimensionRenderable;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.geom.Dimension2D;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Кеш картинок отчетов. Картинка читается и измеряется один раз, дальше во все заполнения
+ * отдается один и тот же {@link Renderable}. JRPdfExporter встраивает картинки с одинаковым
+ * идентификатором один раз на документ, поэтому в объединенном PDF ({@link MergedExporterInput})
+ * логотип всех документов хранится одним объектом.
+ * Вытеснение LRU по суммарному объему, лимит jasper.images.max-bytes.
+ * В шаблоне: {@code $P{IMAGE_CACHE}.get("путь")}, параметр передает {@link ReportRenderer}.
+ */
+@Slf4j
+@Component
+public class ReportImageCache {
+
+    /**
+     * Имя параметра отчета с кешем
+     */
+    public static final String PARAMETER = "IMAGE_CACHE";
+
+    private final long maxBytes;
+    private final JasperReportsContext context = DefaultJasperReportsContext.getInstance();
+    private final LinkedHashMap<String, CachedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ReportImageCache(ReportProperties properties) {
+        this.maxBytes = properties.getImages().getMaxBytes();
+    }
+
+    /**
+     * Картинка по пути (файл, classpath или URL)
+     *
+     * @param location расположение картинки
+     * @return общий для всех отчетов экземпляр
+     */
+    public Renderable get(String location) throws JRException {
+        synchronized (images) {
+            CachedImage image = images.get(location);
+            if (image != null) {
+                return image;
+            }
+        }
+        CachedImage loaded = load(location);
+        synchronized (images) {
+            CachedImage existing = images.get(location);
+            if (existing != null) {
+                return existing;
+            }
+            if (loaded.data.length <= maxBytes) {
+                images.put(location, loaded);
+                totalBytes += loaded.data.length;
+                evict();
+            }
+            return loaded;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, CachedImage>> eldest = images.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().data.length;
+            eldest.remove();
+        }
+    }
+
+    private CachedImage load(String location) throws JRException {
+        byte[] data = RepositoryUtil.getInstance(context).getBytesFromLocation(location);
+        Dimension dimension = measure(data);
+        log.debug("Картинка {} загружена: {} байт, {}", location, data.length, dimension);
+        return new CachedImage(UUID.randomUUID().toString(), data, dimension);
+    }
+
+    /**
+     * Размер из заголовка картинки без полного декодирования; null для форматов, которые ImageIO не знает (SVG)
+     */
+    private static Dimension measure(byte[] data) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class CachedImage implements DataRenderable, DimensionRenderable {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final byte[] data;
+        private final Dimension dimension;
+
+        CachedImage(String id, byte[] data, Dimension dimension) {
+            this.id = id;
+            this.data = data;
+            this.dimension = dimension;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public byte[] getData(JasperReportsContext jasperReportsContext) {
+            return data;
+        }
+
+        @Override
+        public Dimension2D getDimension(JasperReportsContext jasperReportsContext) {
+            return dimension;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.jasper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики формирования отчетов (Micrometer, выгружаются через /actuator/prometheus).
+ * Время каждой фазы по шаблонам, объем результата, количество отчетов в работе и ошибки.
+ */
+@Component
+public class ReportMetrics {
+
+    /**
+     * Значение тега template для идентификаторов, которым не соответствует ни один шаблон
+     */
+    public static final String UNKNOWN_TEMPLATE = "unknown";
+
+    private static final String PHASE_TIMER = "jasper.report.phase";
+    private static final String FAILURES = "jasper.report.failures";
+    private static final String PAGES = "jasper.report.pages";
+    private static final String ELEMENTS = "jasper.report.elements";
+    private static final String OUTPUT = "jasper.report.output";
+    private static final String IN_FLIGHT = "jasper.report.in.flight";
+    private static final String FONT_BYTES = "jasper.fonts.bytes";
+    private static final String JOBS_POSTPONED = "jasper.jobs.postponed";
+    private static final ThreadLocal<Boolean> MUTED = ThreadLocal.withInitial(() -> false);
+
+    private final MeterRegistry registry;
+    private final AtomicInteger inFlight;
+
+    public ReportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.inFlight = registry.gauge(IN_FLIGHT, new AtomicInteger());
+    }
+
+    /**
+     * Выполнить действие без записи метрик отчетов в текущем потоке (прогрев, служебные запуски)
+     *
+     * @param task действие
+     * @return результат действия
+     */
+    public <T> T muted(Task<T> task) throws JRException {
+        boolean previous = MUTED.get();
+        MUTED.set(true);
+        try {
+            return task.run();
+        } finally {
+            MUTED.set(previous);
+        }
+    }
+
+    /**
+     * Выполнить фазу с замером времени; при ошибке увеличивается счетчик ошибок
+     *
+     * @param templateId идентификатор шаблона
+     * @param phase      фаза
+     * @param task       действие
+     * @return результат действия
+     */
+    public <T> T time(String templateId, Phase phase, Task<T> task) throws JRException {
+        long started = System.nanoTime();
+        try {
+            T result = task.run();
+            record(templateId, phase, System.nanoTime() - started);
+            return result;
+        } catch (JRException | RuntimeException | Error e) {
+            failed(templateId, phase, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Записать длительность успешно выполненной фазы
+     */
+    public void record(String templateId, Phase phase, long nanos) {
+        if (MUTED.get()) {
+            return;
+        }
+        Timer.builder(PHASE_TIMER)
+                .description("Длительность фазы формирования отчета")
+                .tags(tags(templateId, phase))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Учесть ошибку фазы
+     */
+    public void failed(String templateId, Phase phase, Throwable error) {
+        if (MUTED.get()) {
+            return;
+        }
+        Counter.builder(FAILURES)
+                .description("Ошибки формирования отчетов")
+                .tags(tags(templateId, phase).and("exception", error.getClass().getSimpleName()))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Учесть размер заполненного отчета
+     *
+     * @param templateId    идентификатор шаблона
+     * @param jasperPrint   заполненный отчет
+     * @param countElements считать элементы; при виртуализации не нужно, т.к. страницы пришлось бы загрузить обратно
+     */
+    public void filled(String templateId, JasperPrint jasperPrint, boolean countElements) {
+        if (MUTED.get()) {
+            return;
+        }
+        List<JRPrintPage> pages = jasperPrint.getPages();
+        summary(PAGES, templateId, null).record(pages.size());
+        if (countElements) {
+            long elements = 0;
+            for (JRPrintPage page : pages) {
+                elements += count(page.getElements());
+            }
+            summary(ELEMENTS, templateId, null).record(elements);
+        }
+    }
+
+    /**
+     * Учесть объем выгруженного документа
+     */
+    public void exported(String templateId, long bytes) {
+        if (MUTED.get()) {
+            return;
+        }
+        summary(OUTPUT, templateId, "bytes").record(bytes);
+    }
+
+    /**
+     * Отчет принят в работу
+     */
+    public void renderStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Отчет сформирован или завершился ошибкой
+     */
+    public void renderFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Задание отложено, потому что очередь заполнения или выгрузки переполнена
+     */
+    public void jobPostponed() {
+        Counter.builder(JOBS_POSTPONED)
+                .description("Задания, отложенные из-за переполненной очереди формирования")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Зарегистрировать метрики пула этапа: очередь, активные потоки, выполненные задачи
+     */
+    public void monitor(String stage, ExecutorService executor) {
+        new ExecutorServiceMetrics(executor, "report-" + stage, Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Зарегистрировать объем загруженного семейства шрифтов
+     */
+    public void fontFamily(String family, long bytes) {
+        Gauge.builder(FONT_BYTES, () -> bytes)
+                .description("Объем файлов загруженного семейства шрифтов")
+                .baseUnit("bytes")
+                .tag("family", family)
+                .register(registry);
+    }
+
+    private DistributionSummary summary(String name, String templateId, String baseUnit) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tag("template", templateId)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Tags tags(String templateId, Phase phase) {
+        return Tags.of("template", templateId, "phase", phase.name().toLowerCase(Locale.ROOT));
+    }
+
+    private static long count(List<JRPrintElement> elements) {
+        long count = elements.size();
+        for (JRPrintElement element : elements) {
+            if (element instanceof JRPrintFrame) {
+                count += count(((JRPrintFrame) element).getElements());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Фаза формирования отчета
+     */
+    public enum Phase {
+        /**
+         * Компиляция *.jrxml
+         */
+        COMPILE,
+        /**
+         * Загрузка отчета, скомпилированного при сборке
+         */
+        LOAD,
+        FILL,
+        EXPORT,
+        /**
+         * Выгрузка данных без верстки (CSV, XLSX)
+         */
+        DATA_EXPORT,
+        /**
+         * Запрос целиком, включая ожидание в очередях
+         */
+        RENDER
+    }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws JRException;
+    }
+}
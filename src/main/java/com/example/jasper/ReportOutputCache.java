@@ -0,0 +1,320 @@
+package com.example.jasper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Кеш готовых PDF по содержимому: ключ - хеш шаблона и канонический хеш параметров и данных.
+ * Два уровня: память (LRU, лимит по объему) и локальный диск (лимит по объему, старые файлы удаляются первыми);
+ * записи старше jasper.cache.ttl не отдаются. Одновременные запросы одного документа
+ * формируют его один раз, остальные ждут результат.
+ */
+@Slf4j
+@Component
+public class ReportOutputCache {
+
+    private static final String EXTENSION = ".pdf";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final ReportTemplateRegistry templates;
+    private final ObjectMapper canonicalMapper;
+    private final boolean enabled;
+    private final long memoryMaxBytes;
+    private final long diskMaxBytes;
+    private final Duration ttl;
+    private final Path diskDir;
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private long memoryBytes;
+
+    public ReportOutputCache(ReportTemplateRegistry templates, ObjectMapper objectMapper, ReportProperties properties)
+            throws IOException {
+        ReportProperties.Cache cache = properties.getCache();
+        this.templates = templates;
+        this.canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                // параметры и данные пишутся в один поток, он не должен закрываться после первого значения
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        this.enabled = cache.isEnabled();
+        this.memoryMaxBytes = cache.getMemoryMaxBytes();
+        this.diskMaxBytes = cache.getDiskMaxBytes();
+        this.ttl = cache.getTtl();
+        this.diskDir = Paths.get(cache.getDiskDir());
+        if (enabled) {
+            Files.createDirectories(diskDir);
+            deleteTempFiles();
+            try (Stream<Path> files = Files.list(diskDir)) {
+                diskBytes.set(files.filter(ReportOutputCache::isEntry).mapToLong(ReportOutputCache::size).sum());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ключ документа
+     *
+     * @param templateId идентификатор шаблона
+     * @param parameters параметры отчета
+     * @param data       данные отчета
+     * @return SHA-256 шаблона, параметров и данных
+     */
+    public String key(String templateId, Map<String, Object> parameters, Object data) throws JRException {
+        MessageDigest digest = sha256();
+        digest.update((templateId + '\n' + templates.contentHash(templateId) + '\n').getBytes(StandardCharsets.UTF_8));
+        try (OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            canonicalMapper.writeValue(outputStream, parameters);
+            outputStream.write('\n');
+            canonicalMapper.writeValue(outputStream, data);
+        } catch (IOException e) {
+            throw new JRException("Не удалось вычислить ключ кеша для шаблона " + templateId, e);
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * Документ из кеша или сформированный заново
+     *
+     * @param key    ключ документа ({@link #key})
+     * @param source формирование документа при промахе
+     * @return PDF
+     */
+    public byte[] get(String key, PdfSource source) throws JRException, TimeoutException, InterruptedException {
+        byte[] cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<byte[]> own = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            cached = lookup(key);
+            byte[] pdf = cached != null ? cached : source.render();
+            if (cached == null) {
+                store(key, pdf);
+            }
+            own.complete(pdf);
+            return pdf;
+        } catch (JRException | TimeoutException | InterruptedException | RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private byte[] lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            MemoryEntry entry = memory.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt < ttl.toMillis()) {
+                    return entry.pdf;
+                }
+                memory.remove(key);
+                memoryBytes -= entry.pdf.length;
+            }
+        }
+        Path file = file(key);
+        try {
+            long createdAt = Files.getLastModifiedTime(file).toMillis();
+            if (now - createdAt >= ttl.toMillis()) {
+                delete(file);
+                return null;
+            }
+            byte[] pdf = Files.readAllBytes(file);
+            remember(key, pdf, createdAt);
+            return pdf;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать {} из кеша", file, e);
+            return null;
+        }
+    }
+
+    private void store(String key, byte[] pdf) {
+        remember(key, pdf, System.currentTimeMillis());
+        if (pdf.length > diskMaxBytes) {
+            return;
+        }
+        Path file = file(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(diskDir, key, TEMP_EXTENSION);
+            Files.write(temp, pdf);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            if (diskBytes.addAndGet(pdf.length) > diskMaxBytes) {
+                evictDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить {} в кеш", file, e);
+        } finally {
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    private void remember(String key, byte[] pdf, long createdAt) {
+        if (pdf.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memory) {
+            MemoryEntry previous = memory.put(key, new MemoryEntry(pdf, createdAt));
+            memoryBytes += pdf.length - (previous == null ? 0 : previous.pdf.length);
+            Iterator<MemoryEntry> eldest = memory.values().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().pdf.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private synchronized void evictDisk() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(diskDir)) {
+            files = list.filter(ReportOutputCache::isEntry)
+                    .sorted(Comparator.comparingLong(ReportOutputCache::lastModified))
+                    .collect(Collectors.toList());
+        }
+        long total = files.stream().mapToLong(ReportOutputCache::size).sum();
+        for (Path file : files) {
+            if (total <= diskMaxBytes) {
+                break;
+            }
+            total -= size(file);
+            delete(file);
+        }
+        diskBytes.set(total);
+    }
+
+    private Path file(String key) {
+        return diskDir.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Временные файлы прерванных записей (например, при остановке процесса) в объем кеша не входят
+     */
+    private void deleteTempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(diskDir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(TEMP_EXTENSION))
+                    .forEach(ReportOutputCache::delete);
+        }
+    }
+
+    private static boolean isEntry(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить {} из кеша", file, e);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running)
+            throws JRException, TimeoutException, InterruptedException {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JRException) {
+                throw (JRException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new JRException(cause);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MemoryEntry {
+        private final byte[] pdf;
+        private final long createdAt;
+
+        MemoryEntry(byte[] pdf, long createdAt) {
+            this.pdf = pdf;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Формирование документа при промахе кеша
+     */
+    @FunctionalInterface
+    public interface PdfSource {
+        byte[] render() throws JRException, TimeoutException, InterruptedException;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.jasper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Компиляция шаблонов *.jrxml в *.jasper на этапе сборки (см. exec-maven-plugin в pom.xml)
+ */
+@Slf4j
+public final class ReportPrecompiler {
+
+    static final String SOURCE_EXTENSION = ".jrxml";
+    static final String COMPILED_EXTENSION = ".jasper";
+
+    private ReportPrecompiler() {
+    }
+
+    /**
+     * @param args каталог с исходниками шаблонов и каталог для скомпилированных отчетов
+     */
+    public static void main(String[] args) throws IOException, JRException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Использование: ReportPrecompiler <каталог jrxml> <каталог jasper>");
+        }
+        Path sourceDir = Paths.get(args[0]);
+        Path targetDir = Files.createDirectories(Paths.get(args[1]));
+
+        List<Path> sources;
+        try (Stream<Path> files = Files.list(sourceDir)) {
+            sources = files
+                    .filter(file -> file.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path source : sources) {
+            String name = source.getFileName().toString();
+            Path target = targetDir.resolve(name.substring(0, name.length() - SOURCE_EXTENSION.length()) + COMPILED_EXTENSION);
+            try (InputStream inputStream = Files.newInputStream(source)) {
+                JasperReport report = JasperCompileManager.compileReport(inputStream);
+                JRSaver.saveObject(report, target.toFile());
+            }
+            log.info("Скомпилирован шаблон {} -> {}", source, target);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.jasper;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки формирования отчетов (префикс jasper)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jasper")
+public class ReportProperties {
+
+    private final Templates templates = new Templates();
+    private final Rendering rendering = new Rendering();
+    private final Virtualizer virtualizer = new Virtualizer();
+    private final Profiling profiling = new Profiling();
+    private final Fonts fonts = new Fonts();
+    private final Warmup warmup = new Warmup();
+    private final Batch batch = new Batch();
+    private final Images images = new Images();
+    private final Cache cache = new Cache();
+    private final Jobs jobs = new Jobs();
+    private final DataExport dataExport = new DataExport();
+
+    @Data
+    public static class Templates {
+        /**
+         * Каталог с исходниками шаблонов *.jrxml
+         */
+        private String dir = ".";
+        /**
+         * Использовать отчеты, скомпилированные при сборке (classpath:reports/*.jasper)
+         */
+        private boolean precompiled = true;
+    }
+
+    @Data
+    public static class Rendering {
+        /**
+         * Режим формирования: последовательный или конвейерный
+         */
+        private RenderingMode mode = RenderingMode.PIPELINED;
+        /**
+         * Количество потоков заполнения отчетов
+         */
+        private int fillThreads = Runtime.getRuntime().availableProcessors();
+        /**
+         * Количество потоков выгрузки в PDF
+         */
+        private int exportThreads = Runtime.getRuntime().availableProcessors();
+        /**
+         * Размер очереди каждого пула; при переполнении запросы отклоняются
+         */
+        private int queueCapacity = 100;
+        /**
+         * Максимальное время формирования одного отчета
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Virtualizer {
+        /**
+         * Виртуализация по умолчанию для запросов, в которых она не указана явно
+         */
+        private boolean enabled = false;
+        private ReportVirtualizers.Type type = ReportVirtualizers.Type.SWAP;
+        /**
+         * Количество страниц, которые держатся в памяти до выгрузки
+         */
+        private int maxPages = 100;
+        /**
+         * Каталог для файлов подкачки
+         */
+        private String swapDir = System.getProperty("java.io.tmpdir");
+        private int blockSize = 4096;
+        private int minGrowCount = 100;
+    }
+
+    @Data
+    public static class Profiling {
+        /**
+         * Профилировать вызовы функций отчетов
+         */
+        private boolean enabled = false;
+        /**
+         * Доля заполнений, которые выполняются с профилированием
+         */
+        private double sampleRate = 0.01;
+    }
+
+    @Data
+    public static class Fonts {
+        /**
+         * Загружать шрифты из расширений при старте, а не при первом отчете
+         */
+        private boolean preload = true;
+    }
+
+    @Data
+    public static class Warmup {
+        /**
+         * Прогревать шаблоны и функции до перевода readiness в ACCEPTING_TRAFFIC
+         */
+        private boolean enabled = true;
+        /**
+         * Количество пробных заполнений и выгрузок каждого шаблона
+         */
+        private int iterations = 3;
+        /**
+         * Количество пустых строк в пробном заполнении
+         */
+        private int rows = 10;
+        /**
+         * Количество итераций вызова частых функций
+         */
+        private int functionIterations = 2000;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Количество потоков пакетного формирования
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+        /**
+         * Сколько записей пакета может быть в работе одновременно (ограничивает память под готовые PDF)
+         */
+        private int window = 2 * Runtime.getRuntime().availableProcessors();
+        /**
+         * Сколько пакетов может выполняться одновременно; остальные отклоняются с 503
+         */
+        private int maxConcurrent = 2;
+        /**
+         * Максимальное время формирования одной записи с момента постановки в очередь
+         */
+        private Duration recordTimeout = Duration.ofMinutes(2);
+    }
+
+    @Data
+    public static class Images {
+        /**
+         * Максимальный суммарный объем картинок в кеше, байт
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Кешировать готовые PDF по содержимому шаблона, параметров и данных
+         */
+        private boolean enabled = false;
+        private long memoryMaxBytes = 64L * 1024 * 1024;
+        private String diskDir = System.getProperty("java.io.tmpdir") + "/jasper-pdf-cache";
+        private long diskMaxBytes = 1024L * 1024 * 1024;
+        /**
+         * Время жизни записи в кеше
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Jobs {
+        /**
+         * Каталог для заданий и их результатов
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/jasper-jobs";
+        /**
+         * Количество заданий, выполняемых одновременно
+         */
+        private int threads = 2;
+        private int maxAttempts = 3;
+        /**
+         * Задержка перед первым повтором, дальше удваивается
+         */
+        private Duration backoff = Duration.ofSeconds(10);
+        /**
+         * Сколько раз попытку можно отложить из-за переполненной очереди формирования, дальше отказ считается ошибкой
+         */
+        private int maxPostponements = 60;
+        /**
+         * Максимальное время формирования отчета задания (отдельно от jasper.rendering.timeout для HTTP)
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+        /**
+         * Сколько хранить результат после завершения задания
+         */
+        private Duration resultTtl = Duration.ofHours(24);
+        /**
+         * Максимальное время ожидания в GET /jobs/{id}/await, больший таймаут из запроса урезается
+         */
+        private Duration maxAwait = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class DataExport {
+        /**
+         * Разделитель столбцов CSV
+         */
+        private char csvSeparator = ';';
+        /**
+         * Сколько строк XLSX держать в памяти, остальные сбрасываются во временный файл
+         */
+        private int xlsxWindow = 100;
+    }
+}
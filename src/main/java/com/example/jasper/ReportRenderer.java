@@ -0,0 +1,181 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Заполнение шаблона данными и выгрузка в PDF
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportRenderer {
+
+    /**
+     * Метка объединенных документов в метриках выгрузки
+     */
+    static final String MERGED = "merged";
+
+    private final ReportTemplateRegistry templates;
+    private final ReportMetrics metrics;
+    private final FunctionProfiler profiler;
+    private final ReportImageCache imageCache;
+
+    /**
+     * Заполнить шаблон данными
+     *
+     * @param templateId идентификатор шаблона
+     * @param parameters параметры отчета
+     * @param dataSource источник данных
+     * @return заполненный отчет
+     */
+    public JasperPrint fill(String templateId, Map<String, Object> parameters, JRDataSource dataSource) throws JRException {
+        return fill(templateId, parameters, dataSource, null);
+    }
+
+    /**
+     * Заполнить шаблон данными с выгрузкой страниц через виртуализатор
+     *
+     * @param templateId  идентификатор шаблона
+     * @param parameters  параметры отчета
+     * @param dataSource  источник данных; если реализует {@link AutoCloseable}, закрывается после заполнения
+     * @param virtualizer виртуализатор или null
+     * @return заполненный отчет
+     */
+    public JasperPrint fill(String templateId, Map<String, Object> parameters, JRDataSource dataSource,
+                            JRVirtualizer virtualizer) throws JRException {
+        Map<String, Object> fillParameters = new HashMap<>(parameters);
+        // служебные параметры всегда задает сервер: значения из запроса их не подменяют
+        fillParameters.put(ReportImageCache.PARAMETER, imageCache);
+        fillParameters.put(NestedRowsCache.PARAMETER, new NestedRowsCache());
+        if (virtualizer != null) {
+            fillParameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        JasperPrint jasperPrint;
+        try {
+            JasperReport report = profiler.sample() ? templates.getProfiled(templateId) : templates.get(templateId);
+            jasperPrint = metrics.time(templateId, ReportMetrics.Phase.FILL,
+                    () -> JasperFillManager.fillReport(report, fillParameters, dataSource));
+            metrics.filled(templateId, jasperPrint, virtualizer == null);
+        } catch (JRException | RuntimeException | Error e) {
+            // ошибка закрытия не должна скрыть причину, по которой не удалось заполнение
+            if (dataSource instanceof AutoCloseable) {
+                closeSuppressed((AutoCloseable) dataSource, e);
+            }
+            throw e;
+        }
+        if (dataSource instanceof AutoCloseable) {
+            close((AutoCloseable) dataSource);
+        }
+        return jasperPrint;
+    }
+
+    private static void close(AutoCloseable dataSource) throws JRException {
+        try {
+            dataSource.close();
+        } catch (JRException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JRException(e);
+        }
+    }
+
+    private static void closeSuppressed(AutoCloseable dataSource, Throwable primary) {
+        try {
+            dataSource.close();
+        } catch (Exception e) {
+            primary.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Выгрузить заполненный отчет в PDF напрямую в поток, без временных файлов и буферизации документа
+     *
+     * @param templateId   идентификатор шаблона
+     * @param jasperPrint  заполненный отчет
+     * @param outputStream поток для записи PDF (не закрывается)
+     */
+    public void exportPdf(String templateId, JasperPrint jasperPrint, OutputStream outputStream) throws JRException {
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        metrics.time(templateId, ReportMetrics.Phase.EXPORT, () -> {
+            JRPdfExporter exporter = new JRPdfExporter();
+            exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(countingStream));
+            exporter.exportReport();
+            return null;
+        });
+        metrics.exported(templateId, countingStream.count);
+    }
+
+    /**
+     * Выгрузить несколько документов в один PDF одним экспортером.
+     * Документы заполняются по очереди по мере выгрузки, уже записанные страницы не держатся в памяти.
+     *
+     * @param documents    документы в порядке следования
+     * @param outputStream поток для записи PDF (не закрывается)
+     */
+    public void exportMergedPdf(List<ReportDocument> documents, OutputStream outputStream) throws JRException {
+        if (documents.isEmpty()) {
+            throw new JRException("Нет документов для объединения");
+        }
+        for (ReportDocument document : documents) {
+            ReportTemplateRegistry.validate(document.getTemplateId());
+        }
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        metrics.time(MERGED, ReportMetrics.Phase.EXPORT, () -> {
+            JRPdfExporter exporter = new JRPdfExporter();
+            exporter.setExporterInput(new MergedExporterInput(documents, this));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(countingStream));
+            try {
+                exporter.exportReport();
+            } catch (JRRuntimeException e) {
+                if (e.getCause() instanceof JRException) {
+                    throw (JRException) e.getCause();
+                }
+                throw e;
+            }
+            return null;
+        });
+        metrics.exported(MERGED, countingStream.count);
+    }
+
+    /**
+     * Подсчет записанных байт без буферизации
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
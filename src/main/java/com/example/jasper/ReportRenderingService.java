@@ -0,0 +1,311 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Параллельное формирование отчетов в ограниченном бюджете ресурсов.
+ * Заполнение и выгрузка выполняются в отдельных пулах с ограниченными очередями;
+ * при переполнении очереди запрос отклоняется ({@link RejectedExecutionException}),
+ * при превышении таймаута выполняющаяся задача прерывается ({@link TimeoutException}).
+ * В режиме {@link RenderingMode#PIPELINED} поток заполнения сразу передает готовый отчет
+ * в пул выгрузки, поэтому заполнение одних отчетов идет параллельно с выгрузкой других.
+ * Потоки пулов пишут результат через {@link GuardedOutput}: после таймаута запись в ответ прекращается,
+ * даже если выгрузка не реагирует на прерывание.
+ */
+@Service
+public class ReportRenderingService implements DisposableBean {
+
+    private final ReportRenderer renderer;
+    private final ReportTemplateRegistry templates;
+    private final ReportVirtualizers virtualizers;
+    private final ReportMetrics metrics;
+    private final StageExecutor fillExecutor;
+    private final StageExecutor exportExecutor;
+    private final RenderingMode mode;
+    private final Duration timeout;
+
+    public ReportRenderingService(ReportRenderer renderer, ReportTemplateRegistry templates, ReportVirtualizers virtualizers,
+                                  ReportMetrics metrics, ReportProperties properties) {
+        ReportProperties.Rendering rendering = properties.getRendering();
+        this.renderer = renderer;
+        this.templates = templates;
+        this.virtualizers = virtualizers;
+        this.metrics = metrics;
+        this.fillExecutor = new StageExecutor("fill", rendering.getFillThreads(), rendering.getQueueCapacity());
+        this.exportExecutor = new StageExecutor("export", rendering.getExportThreads(), rendering.getQueueCapacity());
+        metrics.monitor("fill", fillExecutor);
+        metrics.monitor("export", exportExecutor);
+        this.mode = rendering.getMode();
+        this.timeout = rendering.getTimeout();
+    }
+
+    /**
+     * Сформировать PDF
+     *
+     * @param templateId идентификатор шаблона
+     * @param parameters параметры отчета
+     * @param dataSource  источник данных
+     * @param virtualized выгружать заполненные страницы из кучи; null - по настройке jasper.virtualizer.enabled
+     * @param output      поток для записи PDF; открывается только после успешного заполнения
+     */
+    public void render(String templateId, Map<String, Object> parameters, JRDataSource dataSource,
+                       Boolean virtualized, ReportOutput output)
+            throws JRException, TimeoutException, InterruptedException {
+        render(templateId, parameters, dataSource, virtualized, output, timeout);
+    }
+
+    /**
+     * Сформировать PDF со своим ограничением времени (например, для асинхронных заданий)
+     *
+     * @param templateId  идентификатор шаблона
+     * @param parameters  параметры отчета
+     * @param dataSource  источник данных
+     * @param virtualized выгружать заполненные страницы из кучи; null - по настройке jasper.virtualizer.enabled
+     * @param output      поток для записи PDF; открывается только после успешного заполнения
+     * @param timeout     максимальное время формирования
+     */
+    public void render(String templateId, Map<String, Object> parameters, JRDataSource dataSource,
+                       Boolean virtualized, ReportOutput output, Duration timeout)
+            throws JRException, TimeoutException, InterruptedException {
+        ReportTemplateRegistry.validate(templateId);
+        long started = System.nanoTime();
+        metrics.renderStarted();
+        try {
+            render(templateId, parameters, dataSource, virtualized, output, started + timeout.toNanos());
+            metrics.record(templateId, ReportMetrics.Phase.RENDER, System.nanoTime() - started);
+        } catch (JRException | TimeoutException | InterruptedException | RuntimeException | Error e) {
+            // тег только для существующих шаблонов, иначе любой запрос заводил бы новые метрики
+            metrics.failed(templates.exists(templateId) ? templateId : ReportMetrics.UNKNOWN_TEMPLATE,
+                    ReportMetrics.Phase.RENDER, e);
+            throw e;
+        } finally {
+            metrics.renderFinished();
+        }
+    }
+
+    private void render(String templateId, Map<String, Object> parameters, JRDataSource dataSource,
+                        Boolean virtualized, ReportOutput output, long deadline)
+            throws JRException, TimeoutException, InterruptedException {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> stage = new AtomicReference<>();
+        GuardedOutput guarded = new GuardedOutput(output);
+        // заполненный отчет ждет выгрузки: виртуализатор забирает либо задача выгрузки, либо отмена
+        AtomicReference<JRAbstractLRUVirtualizer> parked = new AtomicReference<>();
+        boolean useVirtualizer = virtualizers.isEnabled(virtualized);
+        Future<?> fill = fillExecutor.submit(() -> {
+            JRAbstractLRUVirtualizer virtualizer = useVirtualizer ? virtualizers.create() : null;
+            JasperPrint jasperPrint;
+            try {
+                jasperPrint = renderer.fill(templateId, parameters, dataSource, virtualizer);
+                if (virtualizer != null) {
+                    virtualizer.setReadOnly(true);
+                }
+            } catch (Throwable e) {
+                cleanup(virtualizer);
+                result.completeExceptionally(e);
+                return;
+            }
+            parked.set(virtualizer);
+            try {
+                if (mode == RenderingMode.PIPELINED) {
+                    stage.set(exportExecutor.submit(() -> export(templateId, jasperPrint, parked, guarded, result)));
+                } else {
+                    export(templateId, jasperPrint, parked, guarded, result);
+                }
+            } catch (Throwable e) {
+                cleanup(parked.getAndSet(null));
+                result.completeExceptionally(e);
+            }
+        });
+        stage.compareAndSet(null, fill);
+        try {
+            await(result, stage, guarded, deadline);
+        } finally {
+            if (result.isCancelled()) {
+                // задача выгрузки могла быть отменена в очереди и не запуститься
+                cleanup(parked.getAndSet(null));
+            }
+        }
+    }
+
+    /**
+     * Сформировать один PDF из нескольких документов; документы заполняются и выгружаются
+     * по очереди в одной задаче пула заполнения
+     *
+     * @param documents документы в порядке следования
+     * @param output    поток для записи PDF
+     */
+    public void renderMerged(List<ReportDocument> documents, ReportOutput output)
+            throws JRException, TimeoutException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> stage = new AtomicReference<>();
+        GuardedOutput guarded = new GuardedOutput(output);
+        metrics.renderStarted();
+        try {
+            stage.set(fillExecutor.submit(() -> {
+                try {
+                    renderer.exportMergedPdf(documents, guarded.open());
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+            await(result, stage, guarded, deadline);
+        } finally {
+            metrics.renderFinished();
+        }
+    }
+
+    /**
+     * Состояние этапов заполнения и выгрузки: потоки, очередь, загрузка
+     *
+     * @return статистика по этапам
+     */
+    public List<StageStats> stageStats() {
+        return Arrays.asList(fillExecutor.stats(), exportExecutor.stats());
+    }
+
+    @Override
+    public void destroy() {
+        fillExecutor.shutdownNow();
+        exportExecutor.shutdownNow();
+    }
+
+    private void export(String templateId, JasperPrint jasperPrint, AtomicReference<JRAbstractLRUVirtualizer> parked,
+                        ReportOutput output, CompletableFuture<Void> result) {
+        JRAbstractLRUVirtualizer virtualizer = parked.getAndSet(null);
+        try {
+            if (!result.isDone()) {
+                renderer.exportPdf(templateId, jasperPrint, output.open());
+                result.complete(null);
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            cleanup(virtualizer);
+        }
+    }
+
+    private static void cleanup(JRAbstractLRUVirtualizer virtualizer) {
+        if (virtualizer != null) {
+            virtualizer.cleanup();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> result, AtomicReference<Future<?>> stage, GuardedOutput output,
+                              long deadline)
+            throws JRException, TimeoutException, InterruptedException {
+        try {
+            result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            output.cancel();
+            result.cancel(false);
+            stage.get().cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JRException) {
+                throw (JRException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new JRException(cause);
+        }
+    }
+
+    /**
+     * Поток результата, который после {@link #cancel()} больше не пишет в исходный поток.
+     * Открытие, запись и отмена выполняются под одной блокировкой: когда cancel() вернул управление,
+     * поток пула уже не обращается к ответу, и поток запроса может отвечать сам.
+     */
+    private static final class GuardedOutput implements ReportOutput {
+        private final ReportOutput output;
+        private boolean cancelled;
+
+        GuardedOutput(ReportOutput output) {
+            this.output = output;
+        }
+
+        @Override
+        public synchronized OutputStream open() throws IOException {
+            check();
+            return new FilterOutputStream(output.open()) {
+                @Override
+                public void write(int b) throws IOException {
+                    synchronized (GuardedOutput.this) {
+                        check();
+                        out.write(b);
+                    }
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    synchronized (GuardedOutput.this) {
+                        check();
+                        out.write(b, off, len);
+                    }
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    synchronized (GuardedOutput.this) {
+                        check();
+                        out.flush();
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    synchronized (GuardedOutput.this) {
+                        if (!cancelled) {
+                            out.close();
+                        }
+                    }
+                }
+            };
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+        }
+
+        private void check() throws IOException {
+            if (cancelled) {
+                throw new IOException("Формирование отчета отменено по таймауту");
+            }
+        }
+    }
+
+    /**
+     * Отложенное открытие потока для результата
+     */
+    @FunctionalInterface
+    public interface ReportOutput {
+        OutputStream open() throws IOException;
+    }
+}
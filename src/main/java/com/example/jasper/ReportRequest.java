@@ -0,0 +1,21 @@
+package com.example.jasper;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запрос на формирование отчета: параметры и строки данных
+ */
+@Data
+public class ReportRequest {
+    private Map<String, Object> parameters = new HashMap<>();
+    private List<Product> products = new ArrayList<>();
+    /**
+     * Выгружать заполненные страницы из кучи (для больших отчетов); null - по настройке сервиса
+     */
+    private Boolean virtualized;
+}
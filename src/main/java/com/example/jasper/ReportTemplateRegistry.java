@@ -0,0 +1,301 @@
+package com.example.jasper;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Реестр скомпилированных шаблонов.
+ * Шаблон компилируется один раз и хранится по идентификатору и хешу содержимого;
+ * повторная компиляция выполняется только при изменении исходника.
+ * Если в classpath есть отчет, скомпилированный при сборке ({@link ReportPrecompiler}),
+ * он загружается через {@link JRLoader} без компиляции.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportTemplateRegistry {
+
+    private static final String PRECOMPILED_LOCATION = "classpath:reports/";
+    private static final Pattern TEMPLATE_ID = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final SourceStamp PRECOMPILED = new SourceStamp(-1, -1);
+    private static final String PROFILED_SUFFIX = "#profiled";
+
+    private final ReportProperties properties;
+    private final ReportMetrics metrics;
+    private final ResourcePatternResolver resources = new PathMatchingResourcePatternResolver();
+    private final ConcurrentMap<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Получить скомпилированный шаблон
+     *
+     * @param templateId идентификатор шаблона (имя файла без .jrxml)
+     * @return скомпилированный шаблон
+     */
+    public JasperReport get(String templateId) throws JRException {
+        return lookup(templateId).await();
+    }
+
+    /**
+     * Получить вариант шаблона с профилированием функций ({@link FunctionProfiler}).
+     * Собирается из исходника *.jrxml; если исходника нет, возвращается обычный шаблон.
+     *
+     * @param templateId идентификатор шаблона
+     * @return скомпилированный шаблон
+     */
+    public JasperReport getProfiled(String templateId) throws JRException {
+        validate(templateId);
+        Path source = templatesDir().resolve(templateId + ReportPrecompiler.SOURCE_EXTENSION);
+        if (!Files.isRegularFile(source)) {
+            log.debug("Нет исходника шаблона {}, профилирование функций недоступно", templateId);
+            return get(templateId);
+        }
+        String key = templateId + PROFILED_SUFFIX;
+        SourceStamp stamp = stamp(source);
+        CompiledTemplate current = templates.get(key);
+        if (current != null && current.getStamp().equals(stamp)) {
+            return current.await();
+        }
+        return install(key, stamp, read(source),
+                content -> metrics.time(templateId, ReportMetrics.Phase.COMPILE,
+                        () -> JasperCompileManager.compileReport(new ByteArrayInputStream(
+                                FunctionProfiler.instrument(templateId, new String(content, StandardCharsets.UTF_8))
+                                        .getBytes(StandardCharsets.UTF_8))))).await();
+    }
+
+    /**
+     * Хеш содержимого шаблона (исходника или отчета, скомпилированного при сборке)
+     *
+     * @param templateId идентификатор шаблона
+     * @return SHA-256 содержимого
+     */
+    public String contentHash(String templateId) throws JRException {
+        CompiledTemplate template = lookup(templateId);
+        template.await();
+        return template.getHash();
+    }
+
+    /**
+     * Идентификаторы всех шаблонов: скомпилированных при сборке и из каталога шаблонов
+     *
+     * @return список идентификаторов
+     */
+    public List<String> templateIds() throws JRException {
+        TreeSet<String> ids = new TreeSet<>();
+        if (properties.getTemplates().isPrecompiled()) {
+            try {
+                for (Resource resource : resources.getResources(PRECOMPILED_LOCATION + "*" + ReportPrecompiler.COMPILED_EXTENSION)) {
+                    ids.add(stripExtension(resource.getFilename(), ReportPrecompiler.COMPILED_EXTENSION));
+                }
+            } catch (IOException e) {
+                throw new JRException("Не удалось прочитать список скомпилированных шаблонов", e);
+            }
+        }
+        if (Files.isDirectory(templatesDir())) {
+            try (Stream<Path> files = Files.list(templatesDir())) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(ReportPrecompiler.SOURCE_EXTENSION))
+                        .map(name -> stripExtension(name, ReportPrecompiler.SOURCE_EXTENSION))
+                        .forEach(ids::add);
+            } catch (IOException e) {
+                throw new JRException("Не удалось прочитать каталог шаблонов " + templatesDir(), e);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Есть ли такой шаблон: уже загруженный, скомпилированный при сборке или исходник в каталоге шаблонов
+     *
+     * @param templateId идентификатор шаблона
+     * @return false и для недопустимых идентификаторов
+     */
+    public boolean exists(String templateId) {
+        if (templateId == null || !TEMPLATE_ID.matcher(templateId).matches()) {
+            return false;
+        }
+        if (templates.containsKey(templateId)) {
+            return true;
+        }
+        if (properties.getTemplates().isPrecompiled()
+                && resources.getResource(PRECOMPILED_LOCATION + templateId + ReportPrecompiler.COMPILED_EXTENSION).exists()) {
+            return true;
+        }
+        return Files.isRegularFile(templatesDir().resolve(templateId + ReportPrecompiler.SOURCE_EXTENSION));
+    }
+
+    private CompiledTemplate lookup(String templateId) throws JRException {
+        validate(templateId);
+        if (properties.getTemplates().isPrecompiled()) {
+            CompiledTemplate current = templates.get(templateId);
+            if (current != null && PRECOMPILED.equals(current.getStamp())) {
+                return current;
+            }
+            Resource artifact = resources.getResource(PRECOMPILED_LOCATION + templateId + ReportPrecompiler.COMPILED_EXTENSION);
+            if (artifact.exists()) {
+                return install(templateId, PRECOMPILED, read(artifact),
+                        content -> metrics.time(templateId, ReportMetrics.Phase.LOAD,
+                                () -> (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(content))));
+            }
+        }
+
+        Path source = resolveSource(templateId);
+        SourceStamp stamp = stamp(source);
+        CompiledTemplate current = templates.get(templateId);
+        if (current != null && current.getStamp().equals(stamp)) {
+            return current;
+        }
+        return install(templateId, stamp, read(source),
+                content -> metrics.time(templateId, ReportMetrics.Phase.COMPILE,
+                        () -> JasperCompileManager.compileReport(new ByteArrayInputStream(content))));
+    }
+
+    private CompiledTemplate install(String templateId, SourceStamp stamp, byte[] content, ReportLoader loader) {
+        String hash = sha256(content);
+        CompiledTemplate candidate = new CompiledTemplate(stamp, hash, new CompletableFuture<>());
+        CompiledTemplate winner = templates.compute(templateId, (id, existing) -> {
+            if (existing != null && existing.getHash().equals(hash)) {
+                return existing.getStamp().equals(stamp) ? existing : existing.withStamp(stamp);
+            }
+            return candidate;
+        });
+        if (winner == candidate) {
+            load(templateId, content, loader, candidate);
+        }
+        return winner;
+    }
+
+    private void load(String templateId, byte[] content, ReportLoader loader, CompiledTemplate template) {
+        long started = System.nanoTime();
+        try {
+            JasperReport report = loader.load(content);
+            template.getReport().complete(report);
+            log.info("Шаблон {} загружен за {} мс", templateId, (System.nanoTime() - started) / 1_000_000);
+        } catch (JRException | RuntimeException e) {
+            template.getReport().completeExceptionally(e);
+            templates.computeIfPresent(templateId,
+                    (id, existing) -> existing.getReport() == template.getReport() ? null : existing);
+        }
+    }
+
+    static void validate(String templateId) throws JRException {
+        if (templateId == null || !TEMPLATE_ID.matcher(templateId).matches()) {
+            throw new JRException("Недопустимый идентификатор шаблона: " + templateId);
+        }
+    }
+
+    private static String stripExtension(String name, String extension) {
+        return name.substring(0, name.length() - extension.length());
+    }
+
+    private Path resolveSource(String templateId) throws JRException {
+        Path source = templatesDir().resolve(templateId + ReportPrecompiler.SOURCE_EXTENSION);
+        if (!Files.isRegularFile(source)) {
+            throw new JRException("Шаблон не найден: " + source);
+        }
+        return source;
+    }
+
+    private Path templatesDir() {
+        return Paths.get(properties.getTemplates().getDir());
+    }
+
+    private static SourceStamp stamp(Path source) throws JRException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            return new SourceStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            throw new JRException("Не удалось прочитать атрибуты шаблона " + source, e);
+        }
+    }
+
+    private static byte[] read(Path source) throws JRException {
+        try {
+            return Files.readAllBytes(source);
+        } catch (IOException e) {
+            throw new JRException("Не удалось прочитать шаблон " + source, e);
+        }
+    }
+
+    private static byte[] read(Resource resource) throws JRException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(inputStream);
+        } catch (IOException e) {
+            throw new JRException("Не удалось прочитать скомпилированный шаблон " + resource, e);
+        }
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReportLoader {
+        JasperReport load(byte[] content) throws JRException;
+    }
+
+    @Value
+    private static class SourceStamp {
+        long lastModified;
+        long size;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class CompiledTemplate {
+        private final SourceStamp stamp;
+        private final String hash;
+        private final CompletableFuture<JasperReport> report;
+
+        CompiledTemplate withStamp(SourceStamp stamp) {
+            return new CompiledTemplate(stamp, hash, report);
+        }
+
+        JasperReport await() throws JRException {
+            try {
+                return report.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof JRException) {
+                    throw (JRException) e.getCause();
+                }
+                throw new JRException(e.getCause());
+            }
+        }
+    }
+}
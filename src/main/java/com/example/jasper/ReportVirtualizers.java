@@ -0,0 +1,61 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Создание виртуализаторов, которые выгружают заполненные страницы из кучи
+ * после превышения заданного количества страниц
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportVirtualizers {
+
+    private final ReportProperties properties;
+
+    /**
+     * Включена ли виртуализация для запроса
+     *
+     * @param requested явный признак из запроса или null
+     * @return признак виртуализации
+     */
+    public boolean isEnabled(Boolean requested) {
+        return requested != null ? requested : properties.getVirtualizer().isEnabled();
+    }
+
+    /**
+     * Новый виртуализатор для одного заполнения; после выгрузки нужно вызвать cleanup()
+     *
+     * @return виртуализатор
+     */
+    public JRAbstractLRUVirtualizer create() {
+        ReportProperties.Virtualizer settings = properties.getVirtualizer();
+        switch (settings.getType()) {
+            case GZIP:
+                return new JRGzipVirtualizer(settings.getMaxPages());
+            case SWAP:
+                JRSwapFile swapFile = new JRSwapFile(settings.getSwapDir(), settings.getBlockSize(), settings.getMinGrowCount());
+                return new JRSwapFileVirtualizer(settings.getMaxPages(), swapFile, true);
+            default:
+                throw new IllegalStateException("Неизвестный тип виртуализатора: " + settings.getType());
+        }
+    }
+
+    /**
+     * Тип виртуализатора
+     */
+    public enum Type {
+        /**
+         * Страницы сериализуются в файл подкачки
+         */
+        SWAP,
+        /**
+         * Страницы сжимаются в памяти
+         */
+        GZIP
+    }
+}
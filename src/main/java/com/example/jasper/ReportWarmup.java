@@ -0,0 +1,99 @@
+package com.example.jasper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Прогрев перед приемом трафика: загрузка или компиляция всех шаблонов, пробное заполнение
+ * и выгрузка каждого из них и вызовы самых частых функций {@link TextFunctions}.
+ * Spring Boot переводит readiness в ACCEPTING_TRAFFIC только после выполнения всех
+ * {@link ApplicationRunner}, поэтому запросы не попадают на непрогретый экземпляр.
+ * Шрифты к этому моменту уже загружены ({@link FontPreloader}).
+ * Пробные заполнения и выгрузки не попадают в метрики отчетов ({@link ReportMetrics#muted}),
+ * загрузка и компиляция шаблонов учитываются как обычно.
+ * Ошибки прогрева не мешают старту и только пишутся в лог.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportWarmup implements ApplicationRunner {
+
+    private final ReportProperties properties;
+    private final ReportTemplateRegistry templates;
+    private final ReportRenderer renderer;
+    private final ReportMetrics metrics;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ReportProperties.Warmup warmup = properties.getWarmup();
+        if (!warmup.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<String> templateIds;
+        try {
+            templateIds = templates.templateIds();
+        } catch (JRException e) {
+            log.warn("Прогрев: не удалось получить список шаблонов", e);
+            templateIds = Collections.emptyList();
+        }
+        for (String templateId : templateIds) {
+            warmup(templateId, warmup);
+        }
+        try {
+            warmupFunctions(warmup.getFunctionIterations());
+        } catch (RuntimeException e) {
+            log.warn("Прогрев функций не выполнен", e);
+        }
+        log.info("Прогрев завершен за {} мс, шаблонов: {}", (System.nanoTime() - started) / 1_000_000, templateIds.size());
+    }
+
+    private void warmup(String templateId, ReportProperties.Warmup warmup) {
+        try {
+            templates.get(templateId);
+            metrics.muted(() -> {
+                for (int i = 0; i < warmup.getIterations(); i++) {
+                    JasperPrint jasperPrint = renderer.fill(templateId, Collections.emptyMap(),
+                            new JREmptyDataSource(warmup.getRows()));
+                    renderer.exportPdf(templateId, jasperPrint, OutputStream.nullOutputStream());
+                }
+                return null;
+            });
+        } catch (JRException | RuntimeException e) {
+            log.warn("Прогрев шаблона {} не выполнен", templateId, e);
+        }
+    }
+
+    private static void warmupFunctions(int iterations) {
+        Date date = Date.from(LocalDate.of(2021, 9, 29).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            BigDecimal amount = BigDecimal.valueOf(123456789L + i, 2);
+            checksum += Objects.hashCode(TextFunctions.amountInDecimalFormat(amount));
+            checksum += Objects.hashCode(TextFunctions.amountInDecimalFormatWithSeparator(amount, ','));
+            checksum += Objects.hashCode(TextFunctions.amountInRurCurrencyStr(amount));
+            checksum += Objects.hashCode(TextFunctions.dateCustomFormat(date, "dd.MM.yyyy"));
+            checksum += Objects.hashCode(TextFunctions.formatDateFromLocalDateTime("2021-09-29T11:51:51", "dd.MM.yyyy"));
+            checksum += Objects.hashCode(TextFunctions.formatCardNumber("4276380012345678"));
+            checksum += Objects.hashCode(TextFunctions.formatAccountNumber("40817810099910004312"));
+            checksum += Objects.hashCode(TextFunctions.defaultIfEmpty(i % 2 == 0 ? "" : "Москва"));
+            checksum += Objects.hashCode(TextFunctions.buildFio("Иванов", "Иван", "Иванович"));
+        }
+        log.debug("Прогрев функций: {} итераций, {}", iterations, checksum);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.jasper;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул одного этапа с ограниченной очередью и учетом времени занятости потоков.
+ * При переполнении очереди задача отклоняется ({@link java.util.concurrent.RejectedExecutionException}).
+ */
+class StageExecutor extends ThreadPoolExecutor {
+    private final String stage;
+    private final int queueCapacity;
+    private final long startedAt = System.nanoTime();
+    private final LongAdder busyNanos = new LongAdder();
+    private final ThreadLocal<Long> taskStartedAt = new ThreadLocal<>();
+
+    StageExecutor(String stage, int threads, int queueCapacity) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("report-" + stage + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.stage = stage;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        taskStartedAt.set(System.nanoTime());
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable error) {
+        busyNanos.add(System.nanoTime() - taskStartedAt.get());
+    }
+
+    StageStats stats() {
+        int threads = getMaximumPoolSize();
+        long elapsed = Math.max(1L, System.nanoTime() - startedAt);
+        return new StageStats(stage, threads, getActiveCount(), getQueue().size(), queueCapacity,
+                getCompletedTaskCount(), (double) busyNanos.sum() / ((double) elapsed * threads));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.jasper;
+
+import lombok.Value;
+
+/**
+ * Состояние этапа формирования отчетов
+ */
+@Value
+public class StageStats {
+    String stage;
+    int threads;
+    int active;
+    int queued;
+    int queueCapacity;
+    long completed;
+    /**
+     * Доля времени, которую потоки этапа были заняты, с момента запуска
+     */
+    double utilization;
+}
@@ -0,0 +1,82 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+
+/**
+ * Источник данных, который вычитывает бины по одному из {@link Iterator}, {@link Stream} или {@link Spliterator}.
+ * Строки не материализуются целиком; исходный ресурс закрывается, как только данные закончились
+ * или заполнение завершено ({@link ReportRenderer} закрывает источники, реализующие {@link AutoCloseable}).
+ *
+ * @param <T> тип бина
+ */
+public class StreamingBeanDataSource<T> implements JRDataSource, AutoCloseable {
+
+    private final Iterator<? extends T> iterator;
+    private final AutoCloseable resource;
+    private final BeanFieldAccessors accessors;
+    private T current;
+    private boolean closed;
+
+    protected StreamingBeanDataSource(Iterator<? extends T> iterator, AutoCloseable resource, boolean useFieldDescription) {
+        this.iterator = iterator;
+        this.resource = resource;
+        this.accessors = new BeanFieldAccessors(useFieldDescription);
+    }
+
+    public static <T> StreamingBeanDataSource<T> of(Iterator<? extends T> iterator) {
+        return new StreamingBeanDataSource<>(iterator, null, false);
+    }
+
+    public static <T> StreamingBeanDataSource<T> of(Spliterator<? extends T> spliterator) {
+        return new StreamingBeanDataSource<>(Spliterators.iterator(spliterator), null, false);
+    }
+
+    /**
+     * @param stream поток бинов; закрывается вместе с источником
+     */
+    public static <T> StreamingBeanDataSource<T> of(Stream<? extends T> stream) {
+        return new StreamingBeanDataSource<>(stream.iterator(), stream, false);
+    }
+
+    @Override
+    public boolean next() {
+        if (closed) {
+            return false;
+        }
+        if (iterator.hasNext()) {
+            current = iterator.next();
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return accessors.getFieldValue(current, field);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                throw new JRRuntimeException(e);
+            }
+        }
+    }
+}
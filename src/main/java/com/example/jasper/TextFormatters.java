@@ -0,0 +1,143 @@
+package com.example.jasper;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Кеш форматтеров для {@link TextFunctions}.
+ * Неизменяемые {@link DateTimeFormatter} общие для всех потоков; {@link DecimalFormat} и {@link SimpleDateFormat}
+ * не потокобезопасны, поэтому хранятся в ограниченном LRU-кеше каждого потока.
+ * Возвращаемые форматтеры нельзя изменять.
+ */
+final class TextFormatters {
+
+    private static final int MAX_SHARED = 256;
+    private static final int MAX_PER_THREAD = 64;
+
+    private static final ConcurrentMap<Locale, ConcurrentMap<String, DateTimeFormatter>> DATE_TIME_FORMATTERS =
+            new ConcurrentHashMap<>();
+    private static final ThreadLocal<PerThread> PER_THREAD = ThreadLocal.withInitial(PerThread::new);
+
+    private TextFormatters() {
+    }
+
+    static DateTimeFormatter dateTimeFormatter(String pattern, Locale locale) {
+        ConcurrentMap<String, DateTimeFormatter> byPattern = DATE_TIME_FORMATTERS.get(locale);
+        if (byPattern == null) {
+            if (DATE_TIME_FORMATTERS.size() >= MAX_SHARED) {
+                return DateTimeFormatter.ofPattern(pattern, locale);
+            }
+            byPattern = DATE_TIME_FORMATTERS.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        }
+        DateTimeFormatter formatter = byPattern.get(pattern);
+        if (formatter == null) {
+            formatter = DateTimeFormatter.ofPattern(pattern, locale);
+            if (byPattern.size() < MAX_SHARED) {
+                byPattern.putIfAbsent(pattern, formatter);
+            }
+        }
+        return formatter;
+    }
+
+    static DecimalFormat decimalFormat(String pattern, Locale locale, char decimalSeparator, char groupingSeparator) {
+        return decimalFormat(pattern, locale, decimalSeparator, groupingSeparator, RoundingMode.HALF_EVEN);
+    }
+
+    static DecimalFormat decimalFormat(String pattern, Locale locale, char decimalSeparator, char groupingSeparator,
+                                       RoundingMode roundingMode) {
+        PerThread cache = PER_THREAD.get();
+        FormatKey key = cache.probe.set(pattern, locale, decimalSeparator, groupingSeparator, roundingMode);
+        Format format = cache.formats.get(key);
+        if (format == null) {
+            DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+            symbols.setDecimalSeparator(decimalSeparator);
+            symbols.setGroupingSeparator(groupingSeparator);
+            DecimalFormat decimalFormat = new DecimalFormat(pattern, symbols);
+            decimalFormat.setRoundingMode(roundingMode);
+            format = decimalFormat;
+            cache.formats.put(key.copy(), format);
+        }
+        return (DecimalFormat) format;
+    }
+
+    static SimpleDateFormat simpleDateFormat(String pattern, Locale locale) {
+        PerThread cache = PER_THREAD.get();
+        FormatKey key = cache.probe.set(pattern, locale, '\0', '\0', null);
+        Format format = cache.formats.get(key);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern, locale);
+            cache.formats.put(key.copy(), format);
+        }
+        return (SimpleDateFormat) format;
+    }
+
+    private static final class PerThread {
+        private final FormatKey probe = new FormatKey();
+        private final Map<FormatKey, Format> formats = new LinkedHashMap<FormatKey, Format>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FormatKey, Format> eldest) {
+                return size() > MAX_PER_THREAD;
+            }
+        };
+    }
+
+    /**
+     * Ключ форматтера; в кеше потока используется один изменяемый экземпляр для поиска без аллокаций
+     */
+    private static final class FormatKey {
+        private String pattern;
+        private Locale locale;
+        private char decimalSeparator;
+        private char groupingSeparator;
+        private RoundingMode roundingMode;
+
+        FormatKey set(String pattern, Locale locale, char decimalSeparator, char groupingSeparator, RoundingMode roundingMode) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.decimalSeparator = decimalSeparator;
+            this.groupingSeparator = groupingSeparator;
+            this.roundingMode = roundingMode;
+            return this;
+        }
+
+        FormatKey copy() {
+            return new FormatKey().set(pattern, locale, decimalSeparator, groupingSeparator, roundingMode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey that = (FormatKey) o;
+            return decimalSeparator == that.decimalSeparator
+                    && groupingSeparator == that.groupingSeparator
+                    && roundingMode == that.roundingMode
+                    && pattern.equals(that.pattern)
+                    && locale.equals(that.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = pattern.hashCode();
+            result = 31 * result + locale.hashCode();
+            result = 31 * result + decimalSeparator;
+            result = 31 * result + groupingSeparator;
+            result = 31 * result + Objects.hashCode(roundingMode);
+            return result;
+        }
+    }
+}
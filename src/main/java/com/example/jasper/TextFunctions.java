@@ -13,9 +13,7 @@ import javax.swing.text.MaskFormatter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
@@ -48,7 +46,6 @@ public class TextFunctions extends AbstractFunctionSupport {
     private static final String CARD_NUMBER_CHAR_MASK = "*";
     private static final char DEFAULT_GROUPING_SEPARATOR = ' ';
     private static final Pattern MOBILE_REG = Pattern.compile("\\+?[7|8]?(\\d{3})(\\d{3})(\\d{2})(\\d{2})$");
-    private static final String TWO_SCALE_STRANGE = "#,##0.00";
     private static final String DASH = "-";
     private static final String DEFAULT_DATE = localDateCustomFormat(LocalDate.of(1990, 1, 1).toString(), "dd.MM.yyyy");
 
@@ -76,7 +73,7 @@ public class TextFunctions extends AbstractFunctionSupport {
         if (date == null) {
             return "";
         }
-        return new SimpleDateFormat(format, RU_LOCALE).format(date);
+        return TextFormatters.simpleDateFormat(format, RU_LOCALE).format(date);
     }
 
     /**
@@ -96,7 +93,7 @@ public class TextFunctions extends AbstractFunctionSupport {
             return "";
         }
         return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE)
-                .format(DateTimeFormatter.ofPattern(pattern, RU_LOCALE));
+                .format(TextFormatters.dateTimeFormatter(pattern, RU_LOCALE));
     }
 
 
@@ -154,7 +151,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("dateFullFormat")
     @FunctionParameters({@FunctionParameter("date")})
     public static String dateFullFormat(Date date) {
-        return new SimpleDateFormat("«d» MMMM yyyyг.", RU_LOCALE).format(date);
+        return TextFormatters.simpleDateFormat("«d» MMMM yyyyг.", RU_LOCALE).format(date);
     }
 
     /**
@@ -240,7 +237,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInDecimalFormat")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInDecimalFormat(BigDecimal amount) {
-        return decimalFormat(amount, TWO, "#,##0.00", '.');
+        return decimalFormat(amount, TWO, '.');
     }
 
 
@@ -254,7 +251,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInDecimalFormatWithSeparator")
     @FunctionParameters({@FunctionParameter("amount"), @FunctionParameter("separator")})
     public static String amountInDecimalFormatWithSeparator(BigDecimal amount, char separator) {
-        return decimalFormat(amount, TWO, "#,##0.00", separator);
+        return decimalFormat(amount, TWO, separator);
     }
 
     /**
@@ -299,7 +296,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInDecimalFormat")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInDecimalFormatScaleThree(BigDecimal amount) {
-        return decimalFormat(amount, THREE, "#,##0.000", '.');
+        return decimalFormat(amount, THREE, '.');
     }
 
     /**
@@ -318,13 +315,8 @@ public class TextFunctions extends AbstractFunctionSupport {
         return amountInDecimalFormatScaleThree(amount);
     }
 
-    private static String decimalFormat(BigDecimal amount, Integer scale, String strange, char separator) {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(RU_LOCALE);
-        symbols.setDecimalSeparator(separator);
-        symbols.setGroupingSeparator(' ');
-        amount = amount.setScale(scale, BigDecimal.ROUND_HALF_UP);
-        DecimalFormat decimalFormat = new DecimalFormat(strange, symbols);
-        return decimalFormat.format(amount);
+    private static String decimalFormat(BigDecimal amount, int scale, char separator) {
+        return MoneyFormat.format(amount, scale, separator, DEFAULT_GROUPING_SEPARATOR);
     }
 
     /**
@@ -539,7 +531,8 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("formatDateFromLocalDateTime")
     @FunctionParameters({@FunctionParameter("date"), @FunctionParameter("format")})
     public static String formatDateFromLocalDateTime(String date, String format) {
-        return DateTimeFormatter.ofPattern(format).format(LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return TextFormatters.dateTimeFormatter(format, Locale.getDefault(Locale.Category.FORMAT))
+                .format(LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
 
     /**
@@ -553,7 +546,8 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("formatDateFromLocalDateTime")
     @FunctionParameters({@FunctionParameter("date"), @FunctionParameter("format"), @FunctionParameter("locale")})
     public static String formatDateFromLocalDateTime(String date, String format, String locale) {
-        return DateTimeFormatter.ofPattern(format, new Locale(locale)).format(LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return TextFormatters.dateTimeFormatter(format, new Locale(locale))
+                .format(LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
 
     /**
@@ -707,17 +701,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInDecimalFormat")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInDecimalFormat(BigDecimal amount, Integer scaleRange) {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(RU_LOCALE);
-        symbols.setDecimalSeparator('.');
-        symbols.setGroupingSeparator(' ');
-        String scale = Arrays.asList(new String[scaleRange]).stream()
-                .map(v -> "0")
-                .reduce((v1, v2) -> v1 + v2)
-                .get();
-        String strange = "#,##0" + (isEmpty(scale) ? "" : "." + scale);
-        amount = amount.setScale(scaleRange, BigDecimal.ROUND_HALF_UP);
-        DecimalFormat decimalFormat = new DecimalFormat(strange, symbols);
-        return decimalFormat.format(amount);
+        return decimalFormat(amount, scaleRange, '.');
     }
 
 
@@ -734,7 +718,7 @@ public class TextFunctions extends AbstractFunctionSupport {
         if (date == null) {
             return "";
         }
-        return DateTimeFormatter.ofPattern(format, RU_LOCALE).format(date);
+        return TextFormatters.dateTimeFormatter(format, RU_LOCALE).format(date);
     }
 
     /**
@@ -845,13 +829,8 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInRurCurrencyStr")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInRurCurrencyStr(BigDecimal amount) {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(RU_LOCALE);
-        symbols.setDecimalSeparator('.');
-        symbols.setGroupingSeparator(' ');
-        String strange = "#,##0";
         amount = amount.setScale(TWO, BigDecimal.ROUND_HALF_UP);
-        DecimalFormat decimalFormat = new DecimalFormat(strange, symbols);
-        decimalFormat.setRoundingMode(RoundingMode.DOWN);
+        DecimalFormat decimalFormat = TextFormatters.decimalFormat("#,##0", RU_LOCALE, '.', DEFAULT_GROUPING_SEPARATOR, RoundingMode.DOWN);
         StringBuilder stringBuilder = new StringBuilder(decimalFormat.format(amount));
 
         stringBuilder.append(" руб. ");
@@ -874,13 +853,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInString")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInString(BigDecimal amount) {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(RU_LOCALE);
-        symbols.setDecimalSeparator('-');
-        symbols.setGroupingSeparator(' ');
-        amount = amount.setScale(TWO, BigDecimal.ROUND_HALF_UP);
-        DecimalFormat decimalFormat =
-                new DecimalFormat("###,##0.00", symbols);
-        return decimalFormat.format(amount);
+        return decimalFormat(amount, TWO, '-');
     }
 
     /**
@@ -954,7 +927,7 @@ public class TextFunctions extends AbstractFunctionSupport {
         if (amount == null) {
             return defaultValue;
         }
-        return decimalFormat(amount, TWO, TWO_SCALE_STRANGE, groupSeparator);
+        return decimalFormat(amount, TWO, groupSeparator);
     }
 
     /**
@@ -1019,7 +992,7 @@ public class TextFunctions extends AbstractFunctionSupport {
     @Function("amountInDecimalFormat")
     @FunctionParameters({@FunctionParameter("amount")})
     public static String amountInDecimalFormatScaleFour(BigDecimal amount) {
-        return decimalFormat(amount, FOUR, "#,##0.0000", '.');
+        return decimalFormat(amount, FOUR, '.');
     }
 
     /**
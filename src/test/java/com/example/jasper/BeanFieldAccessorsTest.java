@@ -0,0 +1,70 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BeanFieldAccessorsTest {
+
+    @Test
+    void readsBeanProperties() throws JRException {
+        List<A> rows = Arrays.asList(new A("1", "first"), new A("2", "second"));
+        Product product = new Product("id", "name", "10.00", rows);
+        BeanFieldAccessors accessors = new BeanFieldAccessors(false);
+
+        assertThat(accessors.getFieldValue(product, field("id"))).isEqualTo("id");
+        assertThat(accessors.getFieldValue(product, field("price"))).isEqualTo("10.00");
+        assertThat(accessors.getFieldValue(product, field("products"))).isSameAs(rows);
+        assertThat(accessors.getFieldValue(rows.get(1), field("name"))).isEqualTo("second");
+    }
+
+    @Test
+    void supportsNestedPathsAndCurrentBean() throws JRException {
+        A row = new A("1", "first");
+        Product product = new Product("id", "name", "10.00", Collections.singletonList(row));
+        JRDesignField nested = field("productName");
+        nested.setDescription("product.name");
+        BeanFieldAccessors accessors = new BeanFieldAccessors(true);
+
+        assertThat(accessors.getFieldValue(Collections.singletonMap("product", product), nested)).isEqualTo("name");
+        assertThat(accessors.getFieldValue(Collections.singletonList(row), field("empty"))).isEqualTo(false);
+        assertThat(accessors.getFieldValue(row, field(BeanFieldAccessors.CURRENT_BEAN))).isSameAs(row);
+    }
+
+    @Test
+    void iteratesCollection() throws JRException {
+        BeanAccessorDataSource dataSource = new BeanAccessorDataSource(Arrays.asList(new A("1", "a"), new A("2", "b")));
+        JRDesignField id = field("id");
+
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(id)).isEqualTo("1");
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(id)).isEqualTo("2");
+        assertThat(dataSource.next()).isFalse();
+
+        dataSource.moveFirst();
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(id)).isEqualTo("1");
+    }
+
+    @Test
+    void failsOnUnknownProperty() {
+        BeanFieldAccessors accessors = new BeanFieldAccessors(false);
+
+        assertThatThrownBy(() -> accessors.getFieldValue(new A("1", "a"), field("missing")))
+                .isInstanceOf(JRException.class);
+    }
+
+    private static JRDesignField field(String name) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        return field;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarDataSourceTest {
+
+    @Test
+    void readsTypedColumnsWithNulls() throws JRException {
+        ColumnarDataSource dataSource = ColumnarDataSource.builder()
+                .column("name", String.class)
+                .column("amount", BigDecimal.class)
+                .column("count", Integer.class)
+                .row("Москва", new BigDecimal("10.50"), 3)
+                .row(null, new BigDecimal("123456789012345678901234.5"), null)
+                .row("Москва", null, -7)
+                .build();
+
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("amount"))).isEqualTo(new BigDecimal("10.50"));
+        Object first = dataSource.getFieldValue(field("name"));
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("name"))).isNull();
+        assertThat(dataSource.getFieldValue(field("amount"))).isEqualTo(new BigDecimal("123456789012345678901234.5"));
+        assertThat(dataSource.getFieldValue(field("count"))).isNull();
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("name"))).isSameAs(first);
+        assertThat(dataSource.getFieldValue(field("count"))).isEqualTo(-7);
+        assertThat(dataSource.next()).isFalse();
+
+        dataSource.moveFirst();
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("count"))).isEqualTo(3);
+    }
+
+    @Test
+    void buildsColumnsFromBeans() throws JRException {
+        ColumnarDataSource dataSource = ColumnarDataSource.of(
+                Arrays.asList(new A("1", "Операция"), new A("2", "Операция")), A.class, "id", "name");
+
+        assertThat(dataSource.size()).isEqualTo(2);
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("id"))).isEqualTo("1");
+        assertThatThrownBy(() -> dataSource.getFieldValue(field("price"))).isInstanceOf(JRException.class);
+    }
+
+    private static JRDesignField field(String name) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        return field;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.jasper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FunctionProfilerTest {
+
+    private static final Set<String> FUNCTIONS = new HashSet<>(Arrays.asList("upperFirst", "defaultIfEmpty"));
+    private static final String P = "com.example.jasper.FunctionProfiler";
+
+    @Test
+    void wrapsNestedCallsAndKeepsLiterals() {
+        String expression = "\"upperFirst(\" + upperFirst (defaultIfEmpty($F{name}, \")\")) + $F{name}.upperFirst()";
+
+        assertThat(FunctionProfiler.instrumentExpression("sec", expression, FUNCTIONS)).isEqualTo(
+                "\"upperFirst(\" + " + P + ".exit(\"sec\", \"upperFirst\", " + P + ".nanos(), " + P + ".allocatedBytes(), upperFirst("
+                        + P + ".exit(\"sec\", \"defaultIfEmpty\", " + P + ".nanos(), " + P + ".allocatedBytes(), "
+                        + "defaultIfEmpty($F{name}, \")\")))) + $F{name}.upperFirst()");
+    }
+
+    @Test
+    void rewritesOnlyExpressions() {
+        String jrxml = "<text><![CDATA[upperFirst(x)]]></text>"
+                + "<textFieldExpression><![CDATA[upperFirst($F{id})]]></textFieldExpression>";
+
+        assertThat(FunctionProfiler.instrument("sec", jrxml))
+                .startsWith("<text><![CDATA[upperFirst(x)]]></text>")
+                .contains(".exit(\"sec\", \"upperFirst\"");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HibernateReportDataSourceTest {
+
+    private static final int PRODUCTS = 250;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Product.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:reports;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.generate_statistics", "true")
+                .buildSessionFactory();
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < PRODUCTS; i++) {
+                session.persist(new Product(null, "Выписка " + i, String.valueOf(i),
+                        new ArrayList<>(Arrays.asList(new A("1", "Операция 1"), new A("2", "Операция 2")))));
+            }
+            transaction.commit();
+        }
+        sessionFactory.getStatistics().clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void streamsProductsWithBatchFetchedRowsAndEmptiesSession() throws Exception {
+        JRDesignField name = new JRDesignField();
+        name.setName("name");
+        JRDesignField products = new JRDesignField();
+        products.setName("products");
+        List<String> names = new ArrayList<>();
+
+        try (Session session = sessionFactory.openSession()) {
+            HibernateReportDataSource<Product> dataSource = HibernateReportDataSource.products(session, 50);
+            while (dataSource.next()) {
+                names.add((String) dataSource.getFieldValue(name));
+                assertThat((List<?>) dataSource.getFieldValue(products)).hasSize(2);
+                assertThat(session.getStatistics().getEntityCount()).isLessThanOrEqualTo(HibernateReportDataSource.DEFAULT_CHUNK_SIZE);
+            }
+
+            assertThat(session.getStatistics().getEntityCount()).isZero();
+        }
+        assertThat(names).hasSize(PRODUCTS);
+        assertThat(sessionFactory.getStatistics().getPrepareStatementCount()).isLessThan(10);
+    }
+}
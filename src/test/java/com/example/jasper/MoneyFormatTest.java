@@ -0,0 +1,70 @@
+package com.example.jasper;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyFormatTest {
+
+    private static final Locale RU_LOCALE = new Locale("ru");
+
+    @Test
+    void formatsLikeDecimalFormat() {
+        for (String value : Arrays.asList("0", "-0.001", "-0.005", "0.005", "999.995", "-999999.9951",
+                "1E+5", "0.00001", "999999999999999999.99", "-123456789012345678.995",
+                "123456789012345678901234.5678")) {
+            assertSameAsDecimalFormat(new BigDecimal(value));
+        }
+    }
+
+    @Test
+    void formatsRandomAmountsLikeDecimalFormat() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigInteger unscaled = new BigInteger(random.nextInt(90) + 1, random)
+                    .subtract(BigInteger.ONE.shiftLeft(random.nextInt(80)));
+            assertSameAsDecimalFormat(new BigDecimal(unscaled, random.nextInt(12) - 3));
+        }
+    }
+
+    @Test
+    void formatsTextFunctionsAmounts() {
+        assertThat(TextFunctions.amountInDecimalFormat(new BigDecimal("1234567.891"))).isEqualTo("1 234 567.89");
+        assertThat(TextFunctions.amountInDecimalFormatWithSeparator(new BigDecimal("-1234.5"), ',')).isEqualTo("-1 234,50");
+        assertThat(TextFunctions.amountInDecimalFormatScaleFour(new BigDecimal("0.00005"))).isEqualTo("0.0001");
+        assertThat(TextFunctions.amountInString(new BigDecimal("20"))).isEqualTo("20-00");
+        assertThat(TextFunctions.amountInDecimalFormat(new BigDecimal("1000"), 0)).isEqualTo("1 000");
+    }
+
+    private static void assertSameAsDecimalFormat(BigDecimal amount) {
+        for (int scale = 0; scale <= 4; scale++) {
+            for (char separator : new char[]{'.', ',', '-'}) {
+                assertThat(MoneyFormat.format(amount, scale, separator, ' '))
+                        .as("%s, scale %d, separator '%s'", amount, scale, separator)
+                        .isEqualTo(reference(amount, scale, separator));
+            }
+        }
+    }
+
+    private static String reference(BigDecimal amount, int scale, char separator) {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(RU_LOCALE);
+        symbols.setDecimalSeparator(separator);
+        symbols.setGroupingSeparator(' ');
+        StringBuilder pattern = new StringBuilder("#,##0");
+        if (scale > 0) {
+            pattern.append('.');
+            for (int i = 0; i < scale; i++) {
+                pattern.append('0');
+            }
+        }
+        return new DecimalFormat(pattern.toString(), symbols).format(amount.setScale(scale, BigDecimal.ROUND_HALF_UP));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NestedRowsCacheTest {
+
+    @Test
+    void sharesOneSnapshotBetweenRunsOfTheSameRows() throws JRException {
+        List<A> rows = new ArrayList<>(Arrays.asList(new A("1", "first"), new A("2", "second")));
+        NestedRowsCache cache = new NestedRowsCache();
+
+        JRRewindableDataSource list = cache.dataSource(rows);
+        assertThat(names(list)).containsExactly("first", "second");
+
+        rows.get(0).setName("changed");
+        JRRewindableDataSource table = cache.dataSource(rows);
+        assertThat(names(table)).containsExactly("first", "second");
+
+        table.moveFirst();
+        assertThat(names(table)).containsExactly("first", "second");
+        assertThat(names(cache.dataSource(new ArrayList<>(rows)))).containsExactly("changed", "second");
+    }
+
+    @Test
+    void emptyForNullRows() throws JRException {
+        assertThat(new NestedRowsCache().dataSource(null).next()).isFalse();
+    }
+
+    private static List<Object> names(JRRewindableDataSource dataSource) throws JRException {
+        JRDesignField name = new JRDesignField();
+        name.setName("name");
+        List<Object> names = new ArrayList<>();
+        while (dataSource.next()) {
+            names.add(dataSource.getFieldValue(name));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.jasper;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportDataExporterTest {
+
+    @Test
+    void streamsNestedTableRowsOfSecTemplateToCsv() throws JRException, IOException {
+        ReportDataExporter.DataLayout layout = ReportDataExporter.layout(JasperCompileManager.compileReport("sec.jrxml"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long rows;
+        try (ReportDataExporter.RowWriter writer = new ReportDataExporter.CsvWriter(outputStream, ';')) {
+            rows = ReportDataExporter.write(layout, StreamingBeanDataSource.of(Arrays.asList(
+                    new Product("1", "Выписка", "10", Arrays.asList(new A("1", "Оплата; услуги"), new A("2", "Возврат"))),
+                    new Product("2", "Пустая", "0", Collections.emptyList()),
+                    new Product("3", "Выписка", "5", Collections.singletonList(new A("3", "Кавычки \"\"")))).iterator()),
+                    writer);
+            writer.finish();
+        }
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("\uFEFF"
+                + "id;name\r\n"
+                + "1;\"Оплата; услуги\"\r\n"
+                + "2;Возврат\r\n"
+                + "3;\"Кавычки \"\"\"\"\"\r\n");
+    }
+}
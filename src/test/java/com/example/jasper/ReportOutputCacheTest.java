@@ -0,0 +1,82 @@
+package com.example.jasper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportOutputCacheTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    @TempDir
+    Path diskDir;
+
+    @Test
+    void rendersOnceAndServesFromMemoryAndDisk() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        ReportOutputCache.PdfSource source = () -> {
+            renders.incrementAndGet();
+            return "%PDF-1.4".getBytes(StandardCharsets.US_ASCII);
+        };
+
+        assertThat(cache(Duration.ofHours(1)).get(KEY, source)).isEqualTo(cache(Duration.ofHours(1)).get(KEY, source));
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void expiredEntriesAreRenderedAgain() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        ReportOutputCache cache = cache(Duration.ZERO);
+
+        cache.get(KEY, () -> new byte[]{(byte) renders.incrementAndGet()});
+        byte[] second = cache.get(KEY, () -> new byte[]{(byte) renders.incrementAndGet()});
+
+        assertThat(second).containsExactly(2);
+    }
+
+    @Test
+    void keyDependsOnTemplateParametersAndData() throws Exception {
+        ReportOutputCache cache = cache(Duration.ofHours(1));
+        Product product = new Product("1", "Выписка", "10.00", Arrays.asList(new A("1", "Оплата")));
+
+        String key = cache.key("sec", Collections.singletonMap("title", "Выписка"), Collections.singletonList(product));
+
+        assertThat(key).hasSize(64)
+                .isEqualTo(cache.key("sec", Collections.singletonMap("title", "Выписка"), Collections.singletonList(product)))
+                .isNotEqualTo(cache.key("sec", Collections.singletonMap("title", "Счет"), Collections.singletonList(product)))
+                .isNotEqualTo(cache.key("other", Collections.singletonMap("title", "Выписка"), Collections.singletonList(product)));
+    }
+
+    @Test
+    void leftoverTempFilesAreDeletedOnStart() throws Exception {
+        Path temp = Files.write(diskDir.resolve(KEY + "123.tmp"), new byte[1024]);
+
+        cache(Duration.ofHours(1));
+
+        assertThat(temp).doesNotExist();
+    }
+
+    private ReportOutputCache cache(Duration ttl) throws Exception {
+        ReportProperties properties = new ReportProperties();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setDiskDir(diskDir.toString());
+        properties.getCache().setTtl(ttl);
+        ReportTemplateRegistry templates = new ReportTemplateRegistry(properties, null) {
+            @Override
+            public String contentHash(String templateId) {
+                return "hash-" + templateId;
+            }
+        };
+        return new ReportOutputCache(templates, new ObjectMapper(), properties);
+    }
+}